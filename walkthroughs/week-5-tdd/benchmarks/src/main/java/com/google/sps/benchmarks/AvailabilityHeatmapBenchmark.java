@@ -0,0 +1,74 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AvailabilityHeatmap;
+import com.google.sps.Event;
+import com.google.sps.MeetingSlot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building an {@link AvailabilityHeatmap} for everybody in a generated calendar and
+ * ranking the best 30 minute meeting times for that group.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvailabilityHeatmapBenchmark {
+  @Param({"1000", "10000"})
+  public int attendees;
+
+  @Param({"10"})
+  public int eventsPerAttendee;
+
+  @Param({"10"})
+  public int limit;
+
+  private List<Event> events;
+  private List<String> people;
+
+  @Setup
+  public void setUp() {
+    events = new CalendarGenerator(42)
+        .attendees(attendees)
+        .eventsPerAttendee(eventsPerAttendee)
+        .events();
+    people = new ArrayList<>(attendees);
+    for (int i = 0; i < attendees; i++) {
+      people.add(CalendarGenerator.person(i));
+    }
+  }
+
+  @Benchmark
+  public List<MeetingSlot> topWindows() {
+    return AvailabilityHeatmap.of(events, people).topWindows(30, limit);
+  }
+}
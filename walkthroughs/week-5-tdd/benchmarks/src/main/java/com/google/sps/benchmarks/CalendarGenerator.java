@@ -0,0 +1,175 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates calendars and meeting requests for the benchmarks. The same seed and settings always
+ * give the same calendar, so runs can be compared with each other.
+ *
+ * <p>Events are placed during working hours on a 5 minute grid. Their average length is picked so
+ * that each attendee is busy for about {@code overlapDensity} of the working day, which means that
+ * a higher density gives both fewer free times and more overlapping events.
+ */
+public final class CalendarGenerator {
+  private static final int WORKDAY_START = TimeRange.getTimeInMinutes(8, 0);
+  private static final int WORKDAY_END = TimeRange.getTimeInMinutes(18, 0);
+  private static final int GRID_MINUTES = 5;
+
+  private final Random random;
+  private int attendees = 100;
+  private int eventsPerAttendee = 10;
+  private int attendeesPerEvent = 3;
+  private double overlapDensity = 0.5;
+  private double optionalAttendeeRatio = 0.3;
+
+  /**
+   * Creates a generator with the default settings.
+   */
+  public CalendarGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /** Sets the number of people in the calendar. */
+  public CalendarGenerator attendees(int attendees) {
+    if (attendees <= 0) {
+      throw new IllegalArgumentException("attendees must be positive");
+    }
+    this.attendees = attendees;
+    return this;
+  }
+
+  /** Sets the average number of events each person attends. */
+  public CalendarGenerator eventsPerAttendee(int eventsPerAttendee) {
+    if (eventsPerAttendee <= 0) {
+      throw new IllegalArgumentException("eventsPerAttendee must be positive");
+    }
+    this.eventsPerAttendee = eventsPerAttendee;
+    return this;
+  }
+
+  /** Sets the number of people attending each event. */
+  public CalendarGenerator attendeesPerEvent(int attendeesPerEvent) {
+    if (attendeesPerEvent <= 0) {
+      throw new IllegalArgumentException("attendeesPerEvent must be positive");
+    }
+    this.attendeesPerEvent = attendeesPerEvent;
+    return this;
+  }
+
+  /** Sets the part of the working day, from 0 to 1, that each person is busy on average. */
+  public CalendarGenerator overlapDensity(double overlapDensity) {
+    if (overlapDensity < 0 || overlapDensity > 1) {
+      throw new IllegalArgumentException("overlapDensity must be between 0 and 1");
+    }
+    this.overlapDensity = overlapDensity;
+    return this;
+  }
+
+  /** Sets the part of the attendees of a request, from 0 to 1, that is optional. */
+  public CalendarGenerator optionalAttendeeRatio(double optionalAttendeeRatio) {
+    if (optionalAttendeeRatio < 0 || optionalAttendeeRatio > 1) {
+      throw new IllegalArgumentException("optionalAttendeeRatio must be between 0 and 1");
+    }
+    this.optionalAttendeeRatio = optionalAttendeeRatio;
+    return this;
+  }
+
+  /** Returns the name of the person with the number {@code index}. */
+  public static String person(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Generates the events of the calendar.
+   */
+  public List<Event> events() {
+    int eventCount = Math.max(1, attendees * eventsPerAttendee / attendeesPerEvent);
+    int workday = WORKDAY_END - WORKDAY_START;
+    // Events are on average this long, so that every attendee is busy for about the overlap
+    // density of the working day.
+    double averageLength = Math.max(GRID_MINUTES, overlapDensity * workday / eventsPerAttendee);
+
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int length = roundToGrid(averageLength * (0.5 + random.nextDouble()));
+      int latestStart = Math.max(workday - length, 0) / GRID_MINUTES;
+      int start = WORKDAY_START + GRID_MINUTES * random.nextInt(latestStart + 1);
+      events.add(new Event(title(i), TimeRange.fromStartDuration(start, length),
+          people(Math.min(attendeesPerEvent, attendees))));
+    }
+    return events;
+  }
+
+  /**
+   * Generates a request for {@code size} people and {@code duration} minutes. Each person is
+   * optional with the chance set by {@link #optionalAttendeeRatio}, but there is always at least
+   * one mandatory attendee.
+   */
+  public MeetingRequest request(int size, int duration) {
+    List<String> mandatory = new ArrayList<>();
+    List<String> optional = new ArrayList<>();
+    for (String person : people(Math.min(size, attendees))) {
+      if (!mandatory.isEmpty() && random.nextDouble() < optionalAttendeeRatio) {
+        optional.add(person);
+      } else {
+        mandatory.add(person);
+      }
+    }
+    MeetingRequest request = new MeetingRequest(mandatory, duration);
+    for (String person : optional) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+
+  /**
+   * Generates {@code count} requests of random sizes from 1 to {@code maxSize} and random durations
+   * from 15 minutes to 2 hours.
+   */
+  public List<MeetingRequest> requests(int count, int maxSize) {
+    List<MeetingRequest> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      requests.add(request(1 + random.nextInt(maxSize), 15 * (1 + random.nextInt(8))));
+    }
+    return requests;
+  }
+
+  private Collection<String> people(int count) {
+    Set<String> people = new LinkedHashSet<>();
+    while (people.size() < count) {
+      people.add(person(random.nextInt(attendees)));
+    }
+    return people;
+  }
+
+  /** Reuses a small set of titles, like real calendars do. */
+  private String title(int index) {
+    return "Meeting " + (index % 50);
+  }
+
+  private static int roundToGrid(double minutes) {
+    return Math.max(GRID_MINUTES, (int) Math.round(minutes / GRID_MINUTES) * GRID_MINUTES);
+  }
+}
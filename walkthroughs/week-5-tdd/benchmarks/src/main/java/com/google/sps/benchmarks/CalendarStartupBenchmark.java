@@ -0,0 +1,92 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.CalendarIndex;
+import com.google.sps.Event;
+import com.google.sps.EventJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures starting a calendar from disk: opening an {@link EventJournal} that was just compacted,
+ * loading its snapshot and building a {@link CalendarIndex} from the events, the way the servlets
+ * start when {@code calendar.dataDirectory} is set.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class CalendarStartupBenchmark {
+  @Param({"1000000", "3000000"})
+  public int events;
+
+  @Param({"30"})
+  public int eventsPerAttendee;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  private Path directory;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<Event> generated = new CalendarGenerator(42)
+        .attendees(Math.max(1, events / eventsPerAttendee * attendeesPerEvent))
+        .eventsPerAttendee(eventsPerAttendee)
+        .attendeesPerEvent(attendeesPerEvent)
+        .events();
+    directory = Files.createTempDirectory("calendar-startup");
+    try (EventJournal journal = EventJournal.open(directory, Integer.MAX_VALUE)) {
+      for (Event event : generated) {
+        journal.recordAdd(event);
+      }
+      journal.compact();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public CalendarIndex startup() throws IOException {
+    try (EventJournal journal = EventJournal.open(directory)) {
+      return new CalendarIndex(journal.load());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.EventRegistry;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures deduplicating a bulk load of events, where every event comes twice and the generated
+ * calendar only has 50 different titles, with a {@code LinkedHashSet} and with an
+ * {@link EventRegistry}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventRegistryBenchmark {
+  @Param({"1000", "10000"})
+  public int attendees;
+
+  @Param({"10"})
+  public int eventsPerAttendee;
+
+  private List<Event> events;
+
+  @Setup
+  public void setUp() {
+    List<Event> generated = new CalendarGenerator(42)
+        .attendees(attendees)
+        .eventsPerAttendee(eventsPerAttendee)
+        .events();
+    events = new ArrayList<>(generated);
+    events.addAll(generated);
+  }
+
+  @Benchmark
+  public Set<Event> hashSet() {
+    return new LinkedHashSet<>(events);
+  }
+
+  @Benchmark
+  public List<Event> registry() {
+    return new EventRegistry().registerAll(events);
+  }
+}
@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.DayBitmapEngine;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingQueryEngine;
+import com.google.sps.MeetingRequest;
+import com.google.sps.SweepLineEngine;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FindMeetingQuery#query} on generated calendars. Every invocation answers the next
+ * request of a fixed list, so the results are not skewed by a single lucky request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindMeetingQueryBenchmark {
+  private static final int REQUESTS = 64;
+
+  @Param({"sweep", "bitmap"})
+  public String engine;
+
+  @Param({"100", "1000"})
+  public int attendees;
+
+  @Param({"10", "50"})
+  public int eventsPerAttendee;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  @Param({"0.5"})
+  public double overlapDensity;
+
+  @Param({"0.3"})
+  public double optionalAttendeeRatio;
+
+  @Param({"8"})
+  public int maxRequestSize;
+
+  private List<Event> events;
+  private List<MeetingRequest> requests;
+  private FindMeetingQuery query;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(42)
+        .attendees(attendees)
+        .eventsPerAttendee(eventsPerAttendee)
+        .attendeesPerEvent(attendeesPerEvent)
+        .overlapDensity(overlapDensity)
+        .optionalAttendeeRatio(optionalAttendeeRatio);
+    events = generator.events();
+    requests = generator.requests(REQUESTS, maxRequestSize);
+    query = new FindMeetingQuery(engine(engine));
+  }
+
+  @Benchmark
+  public Collection<TimeRange> query() {
+    MeetingRequest request = requests.get(next);
+    next = (next + 1) % REQUESTS;
+    return query.query(events, request);
+  }
+
+  /** Returns the engine with the name {@code name}. */
+  static MeetingQueryEngine engine(String name) {
+    switch (name) {
+      case "sweep":
+        return new SweepLineEngine();
+      case "bitmap":
+        return new DayBitmapEngine();
+      default:
+        throw new IllegalArgumentException("Unknown engine: " + name);
+    }
+  }
+}
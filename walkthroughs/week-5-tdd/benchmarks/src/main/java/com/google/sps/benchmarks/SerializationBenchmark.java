@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures turning results into JSON the way the servlets do: the answers of {@code /query} and
+ * the event list of {@code /get-events}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+  @Param({"100", "1000"})
+  public int attendees;
+
+  private final Gson gson = new Gson();
+  private List<Event> events;
+  private List<Collection<TimeRange>> answers;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(42).attendees(attendees);
+    events = generator.events();
+    FindMeetingQuery query = new FindMeetingQuery();
+    answers = new ArrayList<>();
+    for (MeetingRequest request : generator.requests(64, 8)) {
+      answers.add(query.query(events, request));
+    }
+  }
+
+  @Benchmark
+  public String queryAnswers() {
+    return gson.toJson(answers);
+  }
+
+  @Benchmark
+  public String queryAnswersWithNewGson() {
+    // The servlets create a new Gson for every request.
+    return new Gson().toJson(answers);
+  }
+
+  @Benchmark
+  public String events() {
+    return gson.toJson(events);
+  }
+}
@@ -0,0 +1,150 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.BusyTimeSource;
+import com.google.sps.CalendarIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.ShardedCalendar;
+import com.google.sps.TimeRange;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a mix of queries and bookings from many threads at once, on a {@link CalendarIndex}
+ * and on a {@link ShardedCalendar}. Run it with different thread counts, for example
+ * {@code -t 1} and {@code -t 8}, to see how the throughput grows with the number of cores.
+ *
+ * <p>Every write adds an event for a random person and removes it again on the thread's next
+ * write, so the calendar keeps its size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ShardedCalendarBenchmark {
+  @Param({"index", "sharded"})
+  public String calendar;
+
+  @Param({"1000"})
+  public int attendees;
+
+  @Param({"10"})
+  public int eventsPerAttendee;
+
+  @Param({"0.1"})
+  public double writeRatio;
+
+  private CalendarIndex index;
+  private ShardedCalendar sharded;
+  private BusyTimeSource source;
+  private List<MeetingRequest> requests;
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(42)
+        .attendees(attendees)
+        .eventsPerAttendee(eventsPerAttendee);
+    List<Event> events = generator.events();
+    requests = generator.requests(256, 8);
+    switch (calendar) {
+      case "index":
+        index = new CalendarIndex(events);
+        source = index;
+        break;
+      case "sharded":
+        sharded = new ShardedCalendar();
+        sharded.addEvents(events);
+        source = sharded;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown calendar: " + calendar);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (sharded != null) {
+      sharded.close();
+    }
+  }
+
+  /** The state of one benchmark thread. */
+  @State(Scope.Thread)
+  public static class Worker {
+    Random random;
+    Event pending;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      random = new Random(Thread.currentThread().getId());
+    }
+  }
+
+  @Benchmark
+  public Object mixed(Worker worker) {
+    if (worker.random.nextDouble() >= writeRatio) {
+      return query.query(source, requests.get(worker.random.nextInt(requests.size())));
+    }
+    if (worker.pending != null) {
+      remove(worker.pending);
+      worker.pending = null;
+      return Boolean.TRUE;
+    }
+    worker.pending = new Event("Booking",
+        TimeRange.fromStartDuration(15 * worker.random.nextInt(90), 30),
+        Arrays.asList(CalendarGenerator.person(worker.random.nextInt(attendees))));
+    add(worker.pending);
+    return worker.pending;
+  }
+
+  private void add(Event event) {
+    if (sharded != null) {
+      sharded.addEvent(event);
+    } else {
+      index.addEvent(event);
+    }
+  }
+
+  private void remove(Event event) {
+    if (sharded != null) {
+      sharded.removeEvent(event);
+    } else {
+      index.removeEvent(event);
+    }
+  }
+}
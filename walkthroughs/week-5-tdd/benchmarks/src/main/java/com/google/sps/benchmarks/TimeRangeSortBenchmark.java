@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sorting the busy times of a calendar with {@link TimeRange#ORDER_BY_START} and
+ * {@link TimeRange#ORDER_BY_END}. Each sort works on a fresh copy of the unsorted times; the
+ * {@code copyOnly} benchmark measures that copy on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeRangeSortBenchmark {
+  @Param({"1000", "100000"})
+  public int ranges;
+
+  private List<TimeRange> unsorted;
+
+  @Setup
+  public void setUp() {
+    List<Event> events = new CalendarGenerator(42)
+        .attendees(Math.max(ranges / 10, 1))
+        .eventsPerAttendee(10)
+        .attendeesPerEvent(1)
+        .events();
+    unsorted = new ArrayList<>(events.size());
+    for (Event event : events) {
+      unsorted.add(event.getWhen());
+    }
+  }
+
+  @Benchmark
+  public List<TimeRange> copyOnly() {
+    return new ArrayList<>(unsorted);
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByStart() {
+    List<TimeRange> times = new ArrayList<>(unsorted);
+    Collections.sort(times, TimeRange.ORDER_BY_START);
+    return times;
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByEnd() {
+    List<TimeRange> times = new ArrayList<>(unsorted);
+    Collections.sort(times, TimeRange.ORDER_BY_END);
+    return times;
+  }
+}
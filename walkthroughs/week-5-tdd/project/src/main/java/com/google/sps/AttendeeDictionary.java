@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every attendee name a dense {@code int} id, starting at 0. Events store the ids of their
+ * attendees, so checking whether someone attends an event is a bit or array lookup instead of
+ * hashing a string. Every name is stored once, and events share that copy.
+ *
+ * <p>Ids are never reused or forgotten, so the dictionary grows with the number of different people
+ * that were ever added to an event. It can be used from several threads.
+ */
+public final class AttendeeDictionary {
+  private static final AttendeeDictionary SHARED = new AttendeeDictionary();
+
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // The name of every id, in id order, followed by unused room. Only replaced or filled in while
+  // holding {@code this}, and written again after every change so that readers need no lock.
+  private volatile String[] names = new String[16];
+
+  // The number of ids handed out. Guarded by {@code this}.
+  private int size;
+
+  /**
+   * Returns the dictionary that {@link Event} uses.
+   */
+  public static AttendeeDictionary shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the id of {@code name}, giving it the next free id if it does not have one yet.
+   */
+  public int idOf(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+
+    Integer id = ids.get(name);
+    return id != null ? id : add(name);
+  }
+
+  /**
+   * Returns the id of {@code name}, or -1 if it has none. Unlike {@link #idOf}, this never adds a
+   * name, so looking up the people of a request does not grow the dictionary.
+   */
+  public int lookup(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Returns the name with the id {@code id}.
+   */
+  public String nameOf(int id) {
+    String[] current = names;
+    if (id < 0 || id >= current.length || current[id] == null) {
+      throw new IllegalArgumentException("Unknown id: " + id);
+    }
+    return current[id];
+  }
+
+  /**
+   * Returns the number of names in the dictionary.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns the set of the ids of {@code names}. Names without an id are left out: no event has
+   * them as an attendee.
+   */
+  BitSet lookupAll(Collection<String> names) {
+    BitSet found = new BitSet();
+    for (String name : names) {
+      int id = lookup(name);
+      if (id >= 0) {
+        found.set(id);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the set of the ids of {@code names}, giving new ids to the names that have none. Use
+   * this instead of {@link #lookupAll} when events may be added after the set is built.
+   */
+  BitSet idsOf(Collection<String> names) {
+    BitSet found = new BitSet();
+    for (String name : names) {
+      found.set(idOf(name));
+    }
+    return found;
+  }
+
+  private synchronized int add(String name) {
+    // Another thread may have added the name since {@link #idOf} looked.
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    String[] current = names;
+    if (size == current.length) {
+      current = Arrays.copyOf(current, 2 * size);
+    }
+    int newId = size++;
+    current[newId] = name;
+    // Publish the name before the id, so that everyone who can see the id can see the name.
+    names = current;
+    ids.put(name, newId);
+    return newId;
+  }
+}
@@ -0,0 +1,236 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Shows how many people of a group are free at every minute of the day, and which meeting times
+ * the most of them can attend.
+ *
+ * <p>The busy times of every person are merged once, so that overlapping events count once. For
+ * the heatmap, the merged times are added to a difference array and one prefix sum gives the
+ * number of busy people for every minute. For a meeting of a given length, each person's busy
+ * times are turned into the ranges of start minutes they block, like in
+ * {@link MaxOptionalAttendeesQuery}, so that the count for every start is exact and not just an
+ * estimate from the minutes inside the meeting. Both take O(B + 1440) time for B busy times,
+ * however large the group is.
+ */
+public final class AvailabilityHeatmap {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  /** Orders slots from the least to the most attended, and later before earlier among equals. */
+  private static final Comparator<MeetingSlot> WORST_FIRST =
+      Comparator.comparingInt(MeetingSlot::getAvailableAttendees)
+          .thenComparing(MeetingSlot::getWhen, TimeRange.ORDER_BY_START.reversed());
+
+  private final int people;
+
+  // The merged busy times of every person in the group that has any.
+  private final List<TimeRangeArray> busyTimes;
+
+  // free[minute] is the number of people in the group without an event during that minute.
+  private final int[] free = new int[MINUTES];
+
+  private AvailabilityHeatmap(int people, List<TimeRangeArray> busyTimes) {
+    this.people = people;
+    this.busyTimes = busyTimes;
+
+    int[] busy = new int[MINUTES + 1];
+    for (TimeRangeArray times : busyTimes) {
+      for (int i = 0; i < times.size(); i++) {
+        int start = Math.max(times.start(i), 0);
+        int end = Math.min(times.end(i), MINUTES);
+        if (start < end) {
+          busy[start]++;
+          busy[end]--;
+        }
+      }
+    }
+    int busyPeople = 0;
+    for (int minute = 0; minute < MINUTES; minute++) {
+      busyPeople += busy[minute];
+      free[minute] = people - busyPeople;
+    }
+  }
+
+  /**
+   * Returns the heatmap of {@code people} for the day of {@code events}. Events of people outside
+   * the group are skipped.
+   *
+   * @param events All the known events. Must be non-null.
+   * @param people The group. Each person is counted once, however often they are listed. Must be
+   *     non-null.
+   */
+  public static AvailabilityHeatmap of(Collection<Event> events, Collection<String> people) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    if (people == null) {
+      throw new IllegalArgumentException("people cannot be null");
+    }
+
+    BitSet group = AttendeeDictionary.shared().lookupAll(people);
+    Map<Integer, TimeRangeArray> busyTimesById = new HashMap<>();
+    for (Event event : events) {
+      if (!event.hasAnyAttendee(group)) {
+        continue;
+      }
+      for (int id : event.attendeeIds()) {
+        if (group.get(id)) {
+          TimeRangeArray times = busyTimesById.get(id);
+          if (times == null) {
+            times = new TimeRangeArray();
+            busyTimesById.put(id, times);
+          }
+          times.add(event.getWhen());
+        }
+      }
+    }
+
+    List<TimeRangeArray> busyTimes = new ArrayList<>(busyTimesById.values());
+    for (TimeRangeArray times : busyTimes) {
+      times.merge();
+    }
+    return new AvailabilityHeatmap(new HashSet<>(people).size(), busyTimes);
+  }
+
+  /**
+   * Returns the number of people in the group.
+   */
+  public int size() {
+    return people;
+  }
+
+  /**
+   * Returns the number of people in the group who have no event during the minute {@code minute}.
+   */
+  public int freeAt(int minute) {
+    if (minute < 0 || minute >= MINUTES) {
+      throw new IllegalArgumentException("minute must be between 0 and " + (MINUTES - 1));
+    }
+    return free[minute];
+  }
+
+  /**
+   * Returns the number of free people for every minute of the day, as a new array.
+   */
+  public int[] freeCounts() {
+    return free.clone();
+  }
+
+  /**
+   * Returns the {@code limit} times for a meeting of {@code duration} minutes that the most people
+   * can attend, from the most to the least attended and earlier before later among equals.
+   * Neighbouring starts that the same number of people can attend make up one slot, and a meeting
+   * can start at any minute of a slot as long as it ends inside it. Times that nobody can attend
+   * are left out.
+   *
+   * <p>The slots are picked with a heap of at most {@code limit} slots, so asking for a few of them
+   * takes no extra time for sorting all of them.
+   */
+  public List<MeetingSlot> topWindows(int duration, int limit) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit cannot be negative");
+    }
+
+    if (duration > MINUTES || limit == 0) {
+      return Collections.emptyList();
+    }
+    int lastStart = MINUTES - duration;
+
+    // blocked[start] is the number of people who are busy during a meeting that starts then.
+    int[] blocked = new int[MINUTES + 1];
+    for (TimeRangeArray times : busyTimes) {
+      addBlockedStarts(times, duration, lastStart, blocked);
+    }
+
+    // There is at most one slot for every start.
+    PriorityQueue<MeetingSlot> best =
+        new PriorityQueue<>(Math.min(limit, lastStart + 1) + 1, WORST_FIRST);
+    int blockedPeople = blocked[0];
+    int start = 0;
+    while (start <= lastStart) {
+      int available = people - blockedPeople;
+      int end = start;
+      while (end + 1 <= lastStart && blocked[end + 1] == 0) {
+        end++;
+      }
+      if (available > 0) {
+        best.add(new MeetingSlot(TimeRange.fromStartEnd(start, end + duration, false), available));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+      start = end + 1;
+      if (start <= lastStart) {
+        blockedPeople += blocked[start];
+      }
+    }
+
+    List<MeetingSlot> slots = new ArrayList<>(best);
+    Collections.sort(slots, WORST_FIRST.reversed());
+    return slots;
+  }
+
+  /**
+   * Adds one to {@code difference} from every start of a meeting of {@code duration} minutes that
+   * would overlap one of {@code busyTimes}, and subtracts it again after the last one. The busy
+   * times must be merged. Busy times without a duration block the meetings that would span them.
+   */
+  private static void addBlockedStarts(
+      TimeRangeArray busyTimes, int duration, int lastStart, int[] difference) {
+    // The range of blocked starts that is still being extended, from {@code from} to {@code to}
+    // inclusive.
+    int from = -1;
+    int to = -2;
+    for (int i = 0; i < busyTimes.size(); i++) {
+      int blockedFrom = Math.max(busyTimes.start(i) - duration + 1, 0);
+      int blockedTo = Math.min(busyTimes.end(i) - 1, lastStart);
+      if (blockedFrom > blockedTo) {
+        continue;
+      }
+      if (blockedFrom <= to + 1) {
+        to = Math.max(to, blockedTo);
+      } else {
+        addRange(from, to, difference);
+        from = blockedFrom;
+        to = blockedTo;
+      }
+    }
+    addRange(from, to, difference);
+  }
+
+  private static void addRange(int from, int to, int[] difference) {
+    if (from <= to) {
+      difference[from]++;
+      difference[to + 1]--;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the answers to meeting requests up to date while the events of a {@link CalendarIndex}
+ * change, and wakes the subscribers whenever their answer may have changed.
+ *
+ * <p>Every subscription keeps the free times of all its attendees and of its mandatory attendees,
+ * whatever their length. When an event of one of them changes, the calendar only notes the time of
+ * the event and wakes the subscriber, so a booking never waits for the answers to be worked out.
+ * The subscriber brings the answer up to date the next time it asks for it. A change to an event
+ * can only change who is free during that event, so the free times that end before it or start
+ * after it are kept. Only the span between the nearest of those kept free times is worked out
+ * again, from the busy times that fall inside it. The answer then follows from the free times like
+ * in {@link FindMeetingQuery#query}.
+ */
+public final class AvailabilitySubscriptions {
+  private static final int END_OF_DAY = TimeRange.WHOLE_DAY.end();
+
+  private final CalendarIndex calendar;
+
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a registry that follows the changes of {@code calendar}.
+   */
+  public AvailabilitySubscriptions(CalendarIndex calendar) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    this.calendar = calendar;
+  }
+
+  /**
+   * Starts following the answer to {@code request}. {@code onChange} is called every time an event
+   * of one of the people in the request changes, after which {@link Subscription#current} returns
+   * the new answer. It is called while the calendar waits, so it should only wake whoever reads the
+   * answer, and it must not throw.
+   */
+  public Subscription subscribe(MeetingRequest request, Runnable onChange) {
+    if (request == null) {
+      throw new IllegalArgumentException("request cannot be null");
+    }
+
+    if (onChange == null) {
+      throw new IllegalArgumentException("onChange cannot be null");
+    }
+
+    Subscription subscription = new Subscription(request, onChange);
+    subscriptions.add(subscription);
+    calendar.addListener(subscription, subscription::start);
+    return subscription;
+  }
+
+  /**
+   * Returns the number of active subscriptions.
+   */
+  public int size() {
+    return subscriptions.size();
+  }
+
+  /**
+   * Returns the free times of {@code people} from {@code from} to {@code to}, in ascending order.
+   * Nobody may be busy during the minute before {@code from}, and a busy time of one of them must
+   * end at {@code to} unless it is the end of the day. Only the busy times near that span are read.
+   */
+  private List<TimeRange> freeTimes(Collection<String> people, int from, int to) {
+    TimeRangeArray busyTimes = new TimeRangeArray();
+    for (String person : people) {
+      List<TimeRange> personBusyTimes = calendar.busyTimes(person);
+      // The busy times are merged, so their ends are sorted too.
+      for (int i = firstEndingAtOrAfter(personBusyTimes, from); i < personBusyTimes.size(); i++) {
+        TimeRange busyTime = personBusyTimes.get(i);
+        if (busyTime.start() > to) {
+          break;
+        }
+        busyTimes.add(busyTime);
+      }
+    }
+    busyTimes.merge();
+
+    List<TimeRange> freeTimes = new ArrayList<>();
+    int freeFrom = from;
+    for (int i = 0; i < busyTimes.size(); i++) {
+      if (busyTimes.start(i) > freeFrom) {
+        freeTimes.add(TimeRange.fromStartEnd(freeFrom, busyTimes.start(i), false));
+      }
+      freeFrom = Math.max(freeFrom, busyTimes.end(i));
+    }
+    if (to > freeFrom) {
+      freeTimes.add(TimeRange.fromStartEnd(freeFrom, to, false));
+    }
+    return freeTimes;
+  }
+
+  private static int firstEndingAtOrAfter(List<TimeRange> busyTimes, int minute) {
+    int low = 0;
+    int high = busyTimes.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (busyTimes.get(middle).end() < minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * The answer to one meeting request, kept up to date until it is cancelled.
+   */
+  public final class Subscription implements CalendarIndex.Listener {
+    private final Set<String> people;
+    private final List<String> attendees;
+    private final long duration;
+    private final Runnable onChange;
+
+    // The times of the events that changed since the free times were last brought up to date, for
+    // everybody and for the mandatory attendees. Guarded by {@code changes}, which the calendar
+    // only holds long enough to add to them.
+    private final List<TimeRange> changes = new ArrayList<>();
+    private final List<TimeRange> attendeesChanges = new ArrayList<>();
+
+    // All free times of everybody and of the mandatory attendees, and the answer that follows from
+    // them. Guarded by {@code this}.
+    private List<TimeRange> allFreeTimes;
+    private List<TimeRange> attendeesFreeTimes;
+    private List<TimeRange> answer;
+
+    private Subscription(MeetingRequest request, Runnable onChange) {
+      this.attendees = new ArrayList<>(request.getAttendees());
+      this.people = new LinkedHashSet<>(attendees);
+      people.addAll(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.onChange = onChange;
+    }
+
+    /**
+     * Returns the current answer, the same as {@link FindMeetingQuery#query(BusyTimeSource,
+     * MeetingRequest)} on the calendar would return once the changes that woke the subscriber are
+     * done. The list is read-only.
+     */
+    public synchronized List<TimeRange> current() {
+      List<TimeRange> changed;
+      List<TimeRange> attendeesChanged;
+      synchronized (changes) {
+        changed = new ArrayList<>(changes);
+        attendeesChanged = new ArrayList<>(attendeesChanges);
+        changes.clear();
+        attendeesChanges.clear();
+      }
+      if (changed.isEmpty()) {
+        return answer;
+      }
+
+      for (TimeRange time : changed) {
+        allFreeTimes = update(allFreeTimes, people, time);
+      }
+      for (TimeRange time : attendeesChanged) {
+        attendeesFreeTimes = update(attendeesFreeTimes, attendees, time);
+      }
+      answer = answer();
+      return answer;
+    }
+
+    /**
+     * Stops following the answer. {@code onChange} is not called any more afterwards.
+     */
+    public void cancel() {
+      calendar.removeListener(this);
+      subscriptions.remove(this);
+    }
+
+    @Override
+    public void eventChanged(Event event) {
+      if (Collections.disjoint(event.getAttendees(), people)) {
+        return;
+      }
+      synchronized (changes) {
+        changes.add(event.getWhen());
+        if (!Collections.disjoint(event.getAttendees(), attendees)) {
+          attendeesChanges.add(event.getWhen());
+        }
+      }
+      onChange.run();
+    }
+
+    /**
+     * Works out the free times from scratch. Runs while the calendar waits, so that no change is
+     * missed before the subscription starts to hear about them.
+     */
+    private synchronized Void start() {
+      allFreeTimes = freeTimes(people, TimeRange.START_OF_DAY, END_OF_DAY);
+      attendeesFreeTimes = freeTimes(attendees, TimeRange.START_OF_DAY, END_OF_DAY);
+      answer = answer();
+      return null;
+    }
+
+    /**
+     * Returns {@code freeTimes} after a change to an event at {@code changed}. Free times that end
+     * before the change or start after it stay as they are.
+     */
+    private List<TimeRange> update(
+        List<TimeRange> freeTimes, Collection<String> people, TimeRange changed) {
+      List<TimeRange> updated = new ArrayList<>();
+      int index = 0;
+      while (index < freeTimes.size() && freeTimes.get(index).end() < changed.start()) {
+        updated.add(freeTimes.get(index++));
+      }
+      // The free times before and after the span both border on a busy time, which the change
+      // does not touch. If another change did, its own update works out that span again.
+      int from = updated.isEmpty() ? TimeRange.START_OF_DAY : updated.get(updated.size() - 1).end();
+      while (index < freeTimes.size() && freeTimes.get(index).start() <= changed.end()) {
+        index++;
+      }
+      int to = index < freeTimes.size() ? freeTimes.get(index).start() : END_OF_DAY;
+
+      updated.addAll(freeTimes(people, from, to));
+      updated.addAll(freeTimes.subList(index, freeTimes.size()));
+      return updated;
+    }
+
+    private List<TimeRange> answer() {
+      if (people.isEmpty()) {
+        return Collections.singletonList(TimeRange.WHOLE_DAY);
+      }
+      List<TimeRange> times = longEnough(allFreeTimes);
+      if (times.isEmpty() && !attendees.isEmpty()) {
+        times = longEnough(attendeesFreeTimes);
+      }
+      return Collections.unmodifiableList(times);
+    }
+
+    private List<TimeRange> longEnough(List<TimeRange> freeTimes) {
+      List<TimeRange> times = new ArrayList<>();
+      for (TimeRange freeTime : freeTimes) {
+        if (freeTime.duration() >= duration) {
+          times.add(freeTime);
+        }
+      }
+      return times;
+    }
+  }
+}
@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Books meetings into a {@link CalendarIndex} so that no attendee is ever booked twice for the same
+ * time. Checking that a time is free and adding the event happen as one step.
+ *
+ * <p>Instead of one global lock, every attendee maps to one of a fixed number of lock stripes. A
+ * booking only takes the stripes of its own attendees, in ascending order so that two bookings can
+ * never wait for each other, and bookings for different people run in parallel. The free check runs
+ * first without any lock; under the locks it is only repeated if the calendars of the attendees
+ * changed in between. A time that is already taken is rejected without locking at all.
+ *
+ * <p>The guarantee only holds if every change to the events of the booked people goes through
+ * this service.
+ */
+public final class BookingService {
+  private static final int DEFAULT_STRIPES = 64;
+
+  private final CalendarIndex calendar;
+  private final ReentrantLock[] stripes;
+
+  /**
+   * Creates a service that books into {@code calendar}.
+   */
+  public BookingService(CalendarIndex calendar) {
+    this(calendar, DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates a service that books into {@code calendar} and spreads the attendees over
+   * {@code stripes} locks.
+   */
+  public BookingService(CalendarIndex calendar, int stripes) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("stripes must be positive");
+    }
+
+    this.calendar = calendar;
+    this.stripes = new ReentrantLock[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Adds {@code event} if none of its attendees is busy during it.
+   *
+   * @return false if an attendee is busy, in which case nothing changes
+   */
+  public boolean book(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    Collection<String> attendees = event.getAttendees();
+    long version = calendar.version(attendees);
+    if (!isFree(attendees, event.getWhen())) {
+      return false;
+    }
+
+    int[] lockedStripes = stripesOf(event);
+    lock(lockedStripes);
+    try {
+      // Only check again if someone changed the calendar of an attendee since the first check.
+      if (calendar.version(attendees) != version && !isFree(attendees, event.getWhen())) {
+        return false;
+      }
+      calendar.addEvent(event);
+      return true;
+    } finally {
+      unlock(lockedStripes);
+    }
+  }
+
+  /**
+   * Removes one copy of {@code event}.
+   *
+   * @return false if the event was not in the calendar
+   */
+  public boolean cancel(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    int[] lockedStripes = stripesOf(event);
+    lock(lockedStripes);
+    try {
+      return calendar.removeEvent(event);
+    } finally {
+      unlock(lockedStripes);
+    }
+  }
+
+  /**
+   * Returns true if none of {@code attendees} is busy during {@code when}. Like in the engines, an
+   * event without a duration makes its attendees busy if it falls strictly inside {@code when}.
+   */
+  public boolean isFree(Collection<String> attendees, TimeRange when) {
+    for (String attendee : attendees) {
+      for (TimeRange busyTime : calendar.busyTimes(attendee)) {
+        if (busyTime.start() >= when.end()) {
+          // The busy times are sorted by start, so the rest starts even later.
+          break;
+        }
+        boolean conflicts = busyTime.duration() > 0
+            ? busyTime.overlaps(when)
+            : busyTime.start() > when.start();
+        if (conflicts) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Returns the distinct stripes of the attendees of {@code event}, in ascending order. */
+  private int[] stripesOf(Event event) {
+    int[] ids = event.attendeeIds();
+    int[] indexes = new int[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      indexes[i] = ids[i] % stripes.length;
+    }
+    Arrays.sort(indexes);
+    int distinct = 0;
+    for (int i = 0; i < indexes.length; i++) {
+      if (distinct == 0 || indexes[i] != indexes[distinct - 1]) {
+        indexes[distinct++] = indexes[i];
+      }
+    }
+    return Arrays.copyOf(indexes, distinct);
+  }
+
+  private void lock(int[] indexes) {
+    for (int index : indexes) {
+      stripes[index].lock();
+    }
+  }
+
+  private void unlock(int[] indexes) {
+    for (int i = indexes.length - 1; i >= 0; i--) {
+      stripes[indexes[i]].unlock();
+    }
+  }
+}
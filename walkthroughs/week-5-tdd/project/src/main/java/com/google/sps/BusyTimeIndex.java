@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The busy times of every attendee of a snapshot of events, grouped by attendee and sorted by start
+ * time. Building the index takes one pass over the events; afterwards a request only touches the
+ * busy times of its own attendees. The index is read-only, so it can be shared between threads.
+ */
+public final class BusyTimeIndex implements BusyTimeSource {
+  private final Map<String, List<TimeRange>> busyTimesByAttendee = new HashMap<>();
+
+  /**
+   * Creates an index over {@code events}.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public BusyTimeIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        List<TimeRange> busyTimes = busyTimesByAttendee.get(attendee);
+        if (busyTimes == null) {
+          busyTimes = new ArrayList<>();
+          busyTimesByAttendee.put(attendee, busyTimes);
+        }
+        busyTimes.add(event.getWhen());
+      }
+    }
+    for (List<TimeRange> busyTimes : busyTimesByAttendee.values()) {
+      Collections.sort(busyTimes, TimeRange.ORDER_BY_START);
+    }
+  }
+
+  /**
+   * Returns a new list with the busy times of all {@code attendees}. The list is made of one sorted
+   * run per attendee, which {@code Collections.sort} merges quickly.
+   */
+  @Override
+  public List<TimeRange> busyTimes(Collection<String> attendees) {
+    List<TimeRange> busyTimes = new ArrayList<>();
+    for (String attendee : attendees) {
+      List<TimeRange> attendeeBusyTimes = busyTimesByAttendee.get(attendee);
+      if (attendeeBusyTimes != null) {
+        busyTimes.addAll(attendeeBusyTimes);
+      }
+    }
+    return busyTimes;
+  }
+}
@@ -0,0 +1,30 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Something that already knows the busy times of every attendee, so that a query does not need to
+ * scan all events.
+ */
+public interface BusyTimeSource {
+  /**
+   * Returns a new list with the busy times of all {@code attendees}. The list does not need to be
+   * sorted, and the caller is free to change it.
+   */
+  List<TimeRange> busyTimes(Collection<String> attendees);
+}
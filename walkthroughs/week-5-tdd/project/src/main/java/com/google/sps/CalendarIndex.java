@@ -0,0 +1,349 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the busy times of every attendee sorted and merged while events are added and removed. A
+ * change only touches the attendees of the changed event, and a query only has to combine the
+ * ready-made lists of its own attendees.
+ *
+ * <p>Changes are serialized, while reads do not lock. Every change bumps {@link #version()}, so a
+ * reader can tell whether the calendar changed since it last looked. {@link #version(Collection)}
+ * does the same for the calendars of a few attendees only.
+ *
+ * <p>{@link Listener}s hear about every change right after it is made, in the order the changes
+ * were made. {@link #addListener(Listener, Supplier)} also reads the index at the same moment the
+ * listener starts, so that the listener hears about exactly the changes that the reading missed.
+ */
+public final class CalendarIndex implements BusyTimeSource {
+  /**
+   * Hears about every event that is added to or removed from an index.
+   */
+  public interface Listener {
+    /**
+     * Called after {@code event} was added or removed. Runs while further changes wait, so it
+     * should return quickly. It may read the index, but must not change it.
+     */
+    void eventChanged(Event event);
+  }
+
+  // How many times each event was added, in the order the events were first added. Guarded by
+  // {@code this}.
+  private final Map<Event, Integer> eventCounts = new LinkedHashMap<>();
+
+  // The busy times of each attendee, sorted by start time but not merged, so that a single event
+  // can be taken out again. Guarded by {@code this}.
+  private final Map<String, List<TimeRange>> busyTimesByAttendee = new HashMap<>();
+
+  // The merged busy times of each attendee. The lists are never changed after they are published.
+  private final Map<String, List<TimeRange>> mergedBusyTimesByAttendee = new ConcurrentHashMap<>();
+
+  // For each attendee, the version that the last change to one of their events created.
+  private final Map<String, Long> versionByAttendee = new ConcurrentHashMap<>();
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  // Odd while a change is in progress. Readers retry if it is odd or changed while they read.
+  private volatile long sequence;
+
+  /**
+   * Creates an empty index.
+   */
+  public CalendarIndex() {}
+
+  /**
+   * Creates an index that contains {@code events}.
+   */
+  public CalendarIndex(Collection<Event> events) {
+    addEvents(events);
+  }
+
+  /**
+   * Calls {@code listener} after every change from now on.
+   */
+  public void addListener(Listener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null");
+    }
+
+    listeners.add(listener);
+  }
+
+  /**
+   * Calls {@code listener} after every change from now on, and returns what {@code snapshot} reads
+   * from the index right before. No change is made in between, so the listener hears about every
+   * change that the snapshot does not contain, and about no other. {@code snapshot} runs while
+   * changes wait, and must not change the index.
+   */
+  public synchronized <T> T addListener(Listener listener, Supplier<T> snapshot) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null");
+    }
+
+    if (snapshot == null) {
+      throw new IllegalArgumentException("snapshot cannot be null");
+    }
+
+    T result = snapshot.get();
+    listeners.add(listener);
+    return result;
+  }
+
+  /**
+   * Stops calling {@code listener}.
+   */
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns the number of changes made to this index so far.
+   */
+  public long version() {
+    return sequence >>> 1;
+  }
+
+  /**
+   * Returns the version that the last change to an event of any of {@code attendees} created, or 0
+   * if their events never changed. The result only grows, and it grows exactly when one of their
+   * events is added or removed.
+   */
+  public long version(Collection<String> attendees) {
+    long version = 0;
+    for (String attendee : attendees) {
+      Long attendeeVersion = versionByAttendee.get(attendee);
+      if (attendeeVersion != null) {
+        version = Math.max(version, attendeeVersion);
+      }
+    }
+    return version;
+  }
+
+  /**
+   * Adds {@code event}. The same event can be added more than once.
+   */
+  public synchronized void addEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    sequence++;
+    Integer count = eventCounts.get(event);
+    eventCounts.put(event, count == null ? 1 : count + 1);
+    for (String attendee : event.getAttendees()) {
+      List<TimeRange> busyTimes = busyTimesByAttendee.get(attendee);
+      if (busyTimes == null) {
+        busyTimes = new ArrayList<>();
+        busyTimesByAttendee.put(attendee, busyTimes);
+      }
+      int index = Collections.binarySearch(busyTimes, event.getWhen(), TimeRange.ORDER_BY_START);
+      busyTimes.add(index < 0 ? -index - 1 : index, event.getWhen());
+      mergedBusyTimesByAttendee.put(attendee, merge(busyTimes));
+      versionByAttendee.put(attendee, nextVersion());
+    }
+    sequence++;
+    notifyListeners(event);
+  }
+
+  /**
+   * Adds all of {@code events} at once. Readers see either none or all of them, and the version
+   * grows by one per event, like after as many calls to {@link #addEvent}. The busy times of each
+   * attendee are sorted and merged once instead of once per event, so loading a calendar of N
+   * events takes O(N log N) time.
+   */
+  public synchronized void addEvents(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    for (Event event : events) {
+      if (event == null) {
+        throw new IllegalArgumentException("events cannot contain null");
+      }
+    }
+    if (events.isEmpty()) {
+      return;
+    }
+
+    long version = version() + events.size();
+    sequence++;
+    // Group the busy times by attendee id first, so that the map of each attendee is only looked up
+    // once however many events they have.
+    AttendeeDictionary dictionary = AttendeeDictionary.shared();
+    int[] counts = new int[dictionary.size()];
+    for (Event event : events) {
+      eventCounts.merge(event, 1, Integer::sum);
+      for (int id : event.attendeeIds()) {
+        counts[id]++;
+      }
+    }
+    TimeRange[][] addedBusyTimes = new TimeRange[counts.length][];
+    for (Event event : events) {
+      for (int id : event.attendeeIds()) {
+        if (addedBusyTimes[id] == null) {
+          addedBusyTimes[id] = new TimeRange[counts[id]];
+        }
+        addedBusyTimes[id][--counts[id]] = event.getWhen();
+      }
+    }
+    for (int id = 0; id < addedBusyTimes.length; id++) {
+      if (addedBusyTimes[id] == null) {
+        continue;
+      }
+      String attendee = dictionary.nameOf(id);
+      List<TimeRange> busyTimes = busyTimesByAttendee.get(attendee);
+      if (busyTimes == null) {
+        busyTimes = new ArrayList<>(addedBusyTimes[id].length);
+        busyTimesByAttendee.put(attendee, busyTimes);
+      }
+      busyTimes.addAll(Arrays.asList(addedBusyTimes[id]));
+      // The busy times from before are one sorted run, which the sort merges with the new ones.
+      busyTimes.sort(TimeRange.ORDER_BY_START);
+      mergedBusyTimesByAttendee.put(attendee, merge(busyTimes));
+      versionByAttendee.put(attendee, version);
+    }
+    sequence += 2L * events.size() - 1;
+    for (Event event : events) {
+      notifyListeners(event);
+    }
+  }
+
+  /**
+   * Removes one copy of {@code event}.
+   *
+   * @return false if the event was not in this index
+   */
+  public synchronized boolean removeEvent(Event event) {
+    Integer count = eventCounts.get(event);
+    if (count == null) {
+      return false;
+    }
+
+    sequence++;
+    if (count == 1) {
+      eventCounts.remove(event);
+    } else {
+      eventCounts.put(event, count - 1);
+    }
+    for (String attendee : event.getAttendees()) {
+      List<TimeRange> busyTimes = busyTimesByAttendee.get(attendee);
+      busyTimes.remove(event.getWhen());
+      if (busyTimes.isEmpty()) {
+        busyTimesByAttendee.remove(attendee);
+        mergedBusyTimesByAttendee.remove(attendee);
+      } else {
+        mergedBusyTimesByAttendee.put(attendee, merge(busyTimes));
+      }
+      versionByAttendee.put(attendee, nextVersion());
+    }
+    sequence++;
+    notifyListeners(event);
+    return true;
+  }
+
+  /**
+   * Returns a new list with all events, in the order they were first added. An event that was
+   * added more than once is in the list that many times.
+   */
+  public synchronized List<Event> events() {
+    List<Event> events = new ArrayList<>();
+    for (Map.Entry<Event, Integer> entry : eventCounts.entrySet()) {
+      for (int i = 0; i < entry.getValue(); i++) {
+        events.add(entry.getKey());
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Returns the merged busy times of {@code attendee}, sorted by start time.
+   */
+  public List<TimeRange> busyTimes(String attendee) {
+    List<TimeRange> busyTimes = mergedBusyTimesByAttendee.get(attendee);
+    return busyTimes == null ? Collections.<TimeRange>emptyList() : busyTimes;
+  }
+
+  /**
+   * Returns the busy times of all {@code attendees} as they were at a single version. The list is
+   * made of one sorted run per attendee, which {@code Collections.sort} merges quickly.
+   */
+  @Override
+  public List<TimeRange> busyTimes(Collection<String> attendees) {
+    while (true) {
+      long before = sequence;
+      if ((before & 1) == 0) {
+        List<TimeRange> busyTimes = new ArrayList<>();
+        for (String attendee : attendees) {
+          busyTimes.addAll(busyTimes(attendee));
+        }
+        if (sequence == before) {
+          return busyTimes;
+        }
+      }
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Tells the listeners about a change that is complete, while still holding the lock so that they
+   * hear about changes in order.
+   */
+  private void notifyListeners(Event event) {
+    for (Listener listener : listeners) {
+      listener.eventChanged(event);
+    }
+  }
+
+  /**
+   * Returns the version that the change in progress creates.
+   */
+  private long nextVersion() {
+    return (sequence + 1) >>> 1;
+  }
+
+  /**
+   * Merges busy times that are sorted by start time into a read-only list of disjoint busy times.
+   * Busy times without a duration are only kept if no other busy time covers them, because the
+   * engines still end a free time at their start.
+   */
+  private static List<TimeRange> merge(List<TimeRange> busyTimes) {
+    List<TimeRange> merged = new ArrayList<>();
+    int start = busyTimes.get(0).start();
+    int end = busyTimes.get(0).end();
+    for (TimeRange busyTime : busyTimes) {
+      if (busyTime.start() <= end) {
+        end = Math.max(end, busyTime.end());
+      } else {
+        merged.add(TimeRange.fromStartEnd(start, end, false));
+        start = busyTime.start();
+        end = busyTime.end();
+      }
+    }
+    merged.add(TimeRange.fromStartEnd(start, end, false));
+    return Collections.unmodifiableList(merged);
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * A set of minutes of a day, stored as one bit per minute. The 1440 minutes of
+ * {@link TimeRange#WHOLE_DAY} fit in 23 {@code long} words, so combining two bitmaps or finding the
+ * next set minute takes a handful of word operations no matter how many ranges were added.
+ */
+public final class DayBitmap {
+  /** The number of minutes in a day. */
+  public static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  private static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private final long[] words;
+
+  /**
+   * Creates an empty bitmap.
+   */
+  public DayBitmap() {
+    this.words = new long[WORDS];
+  }
+
+  private DayBitmap(long[] words) {
+    this.words = words;
+  }
+
+  /**
+   * Returns a copy of this bitmap that can be changed independently.
+   */
+  public DayBitmap copy() {
+    return new DayBitmap(words.clone());
+  }
+
+  /**
+   * Adds the minutes of {@code range} to this bitmap. The parts of the range that fall outside of
+   * the day are ignored.
+   */
+  public void add(TimeRange range) {
+    add(range.start(), range.end());
+  }
+
+  /**
+   * Adds the minutes from {@code from} (inclusive) to {@code to} (exclusive) to this bitmap. The
+   * minutes that fall outside of the day are ignored.
+   */
+  public void add(int from, int to) {
+    from = Math.max(from, 0);
+    to = Math.min(to, MINUTES);
+    if (from >= to) {
+      return;
+    }
+
+    int firstWord = from >>> 6;
+    int lastWord = (to - 1) >>> 6;
+    // Shifts only use the lowest 6 bits of the distance, so these are the masks for the bits from
+    // {@code from} up to the end of its word, and from the start of the last word up to {@code to}.
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (firstWord == lastWord) {
+      words[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    words[firstWord] |= firstMask;
+    for (int word = firstWord + 1; word < lastWord; word++) {
+      words[word] = -1L;
+    }
+    words[lastWord] |= lastMask;
+  }
+
+  /**
+   * Adds the single {@code minute} to this bitmap. Minutes outside of the day are ignored.
+   */
+  public void add(int minute) {
+    add(minute, minute + 1);
+  }
+
+  /**
+   * Adds all the minutes of {@code other} to this bitmap.
+   */
+  public void or(DayBitmap other) {
+    for (int word = 0; word < WORDS; word++) {
+      words[word] |= other.words[word];
+    }
+  }
+
+  /**
+   * Returns true if {@code minute} is in this bitmap.
+   */
+  public boolean contains(int minute) {
+    if (minute < 0 || minute >= MINUTES) {
+      return false;
+    }
+    return (words[minute >>> 6] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Returns true if no minute is in this bitmap.
+   */
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} that is in this bitmap, or {@link #MINUTES}
+   * if there is none.
+   */
+  public int nextSetMinute(int from) {
+    return next(Math.max(from, 0), 0L);
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} that is not in this bitmap, or
+   * {@link #MINUTES} if there is none.
+   */
+  public int nextClearMinute(int from) {
+    return next(Math.max(from, 0), -1L);
+  }
+
+  /**
+   * Finds the first bit at or after {@code from} that is set in the words XOR-ed with
+   * {@code flip}. Flipping every bit turns a search for a clear bit into a search for a set bit.
+   */
+  private int next(int from, long flip) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int word = from >>> 6;
+    long bits = (words[word] ^ flip) & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORDS) {
+        return MINUTES;
+      }
+      bits = words[word] ^ flip;
+    }
+    // The unused bits at the end of the last word are clear, so a flipped search can land there.
+    return Math.min(word * Long.SIZE + Long.numberOfTrailingZeros(bits), MINUTES);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof DayBitmap && Arrays.equals(words, ((DayBitmap) other).words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+}
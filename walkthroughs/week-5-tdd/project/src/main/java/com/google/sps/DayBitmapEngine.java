@@ -0,0 +1,110 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Engine that keeps one {@link DayBitmap} of busy minutes per attendee. The bitmaps of the
+ * mandatory attendees are OR-ed together, the optional attendees are OR-ed on top of that, and the
+ * free times are the runs of clear bits. Once the bitmaps are built, the cost no longer depends on
+ * how many events an attendee has.
+ */
+public final class DayBitmapEngine implements MeetingQueryEngine {
+  @Override
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    Set<String> allAttendees = new HashSet<>(request.getAttendees());
+    allAttendees.addAll(request.getOptionalAttendees());
+
+    // Events without a duration take up no minutes, but like in the other engines they still end
+    // a free time at their start. Those starts are kept in a separate bitmap.
+    Map<String, DayBitmap> busyMinutes = new HashMap<>();
+    Map<String, DayBitmap> breaks = new HashMap<>();
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      for (String attendee : event.getAttendees()) {
+        if (!allAttendees.contains(attendee)) {
+          continue;
+        }
+        if (when.duration() > 0) {
+          bitmapOf(attendee, busyMinutes).add(when);
+        } else {
+          bitmapOf(attendee, breaks).add(when.start());
+        }
+      }
+    }
+
+    DayBitmap attendeesBusy = union(request.getAttendees(), busyMinutes);
+    DayBitmap attendeesBreaks = union(request.getAttendees(), breaks);
+    DayBitmap allAttendeesBusy = attendeesBusy.copy();
+    allAttendeesBusy.or(union(request.getOptionalAttendees(), busyMinutes));
+    DayBitmap allAttendeesBreaks = attendeesBreaks.copy();
+    allAttendeesBreaks.or(union(request.getOptionalAttendees(), breaks));
+
+    List<TimeRange> possibleTimes =
+        freeTimes(allAttendeesBusy, allAttendeesBreaks, request.getDuration());
+    // Fall back to the mandatory attendees only. Without mandatory attendees there is nobody left
+    // to schedule the meeting for.
+    if (possibleTimes.isEmpty() && !request.getAttendees().isEmpty()) {
+      possibleTimes = freeTimes(attendeesBusy, attendeesBreaks, request.getDuration());
+    }
+    return possibleTimes;
+  }
+
+  /**
+   * Returns the runs of at least {@code duration} minutes that are clear in {@code busy}, in
+   * ascending order. A run never continues into a minute that is set in {@code breaks}.
+   */
+  static List<TimeRange> freeTimes(DayBitmap busy, DayBitmap breaks, long duration) {
+    List<TimeRange> freeTimes = new ArrayList<>();
+    int from = busy.nextClearMinute(0);
+    while (from < DayBitmap.MINUTES) {
+      int to = Math.min(busy.nextSetMinute(from), breaks.nextSetMinute(from + 1));
+      if (to - from >= duration) {
+        freeTimes.add(TimeRange.fromStartEnd(from, to, false));
+      }
+      from = busy.nextClearMinute(to);
+    }
+    return freeTimes;
+  }
+
+  /** Returns the bitmap of {@code attendee} in {@code bitmaps}, adding an empty one if needed. */
+  private static DayBitmap bitmapOf(String attendee, Map<String, DayBitmap> bitmaps) {
+    DayBitmap bitmap = bitmaps.get(attendee);
+    if (bitmap == null) {
+      bitmap = new DayBitmap();
+      bitmaps.put(attendee, bitmap);
+    }
+    return bitmap;
+  }
+
+  /** Returns the OR of the bitmaps of {@code attendees}. Attendees without a bitmap are skipped. */
+  private static DayBitmap union(Collection<String> attendees, Map<String, DayBitmap> bitmaps) {
+    DayBitmap union = new DayBitmap();
+    for (String attendee : attendees) {
+      DayBitmap bitmap = bitmaps.get(attendee);
+      if (bitmap != null) {
+        union.or(bitmap);
+      }
+    }
+    return union;
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Keeps track of the earliest time a meeting can take place while events are added and removed.
+ * The busy times of the mandatory attendees and of all attendees are kept in two
+ * {@link FreeTimeTree}s, so every change and every lookup takes O(log 1440) time.
+ */
+public final class EarliestFitIndex {
+  private final MeetingRequest request;
+  private final BitSet attendees;
+  private final BitSet optionalAttendees;
+  private final FreeTimeTree attendeesBusy = new FreeTimeTree();
+  private final FreeTimeTree allAttendeesBusy = new FreeTimeTree();
+
+  /**
+   * Creates an index for {@code request} over {@code events}.
+   *
+   * @param events The events that are already scheduled. Must be non-null.
+   * @param request The meeting that is to be scheduled. Must be non-null.
+   */
+  public EarliestFitIndex(Collection<Event> events, MeetingRequest request) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    if (request == null) {
+      throw new IllegalArgumentException("request cannot be null");
+    }
+
+    this.request = request;
+    // Give the people new ids if needed, so that events added later still match them.
+    this.attendees = AttendeeDictionary.shared().idsOf(request.getAttendees());
+    this.optionalAttendees = AttendeeDictionary.shared().idsOf(request.getOptionalAttendees());
+    for (Event event : events) {
+      addEvent(event);
+    }
+  }
+
+  /**
+   * Adds one event. Events that none of the attendees attend are ignored.
+   */
+  public void addEvent(Event event) {
+    if (event.hasAnyAttendee(attendees)) {
+      attendeesBusy.addBusy(event.getWhen());
+      allAttendeesBusy.addBusy(event.getWhen());
+    } else if (event.hasAnyAttendee(optionalAttendees)) {
+      allAttendeesBusy.addBusy(event.getWhen());
+    }
+  }
+
+  /**
+   * Removes one event that was added before.
+   */
+  public void removeEvent(Event event) {
+    if (event.hasAnyAttendee(attendees)) {
+      attendeesBusy.removeBusy(event.getWhen());
+      allAttendeesBusy.removeBusy(event.getWhen());
+    } else if (event.hasAnyAttendee(optionalAttendees)) {
+      allAttendeesBusy.removeBusy(event.getWhen());
+    }
+  }
+
+  /**
+   * Returns the earliest time the meeting can take place. Like {@link FindMeetingQuery#query}, the
+   * optional attendees are only dropped if there is no time that works for everyone.
+   */
+  public Optional<TimeRange> earliestFit() {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Optional.empty();
+    }
+
+    int start = allAttendeesBusy.earliestFit(request.getDuration());
+    if (start < 0 && !request.getAttendees().isEmpty()) {
+      start = attendeesBusy.earliestFit(request.getDuration());
+    }
+    if (start < 0) {
+      return Optional.empty();
+    }
+    return Optional.of(TimeRange.fromStartDuration(start, (int) request.getDuration()));
+  }
+}
@@ -14,9 +14,11 @@
 
 package com.google.sps;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -26,7 +28,16 @@ import java.util.Set;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+
+  // The attendees, sorted by their id in {@link AttendeeDictionary#shared()}. The names are the
+  // dictionary's own copies, so all events of a person share one string.
+  private final String[] attendees;
+
+  // The ids of {@code attendees}, in the same order. Not part of the JSON form of the event.
+  private final transient int[] attendeeIds;
+
+  // Events are read-only, so the hash code is worked out once.
+  private final transient int hashCode;
 
   /**
    * Creates a new event.
@@ -50,7 +61,39 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+
+    AttendeeDictionary dictionary = AttendeeDictionary.shared();
+    int[] ids = new int[attendees.size()];
+    int count = 0;
+    for (String attendee : attendees) {
+      ids[count++] = dictionary.idOf(attendee);
+    }
+    Arrays.sort(ids);
+    // Drop duplicates, like the set that used to hold the attendees did.
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+        ids[distinct++] = ids[i];
+      }
+    }
+    this.attendeeIds = distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    this.attendees = new String[distinct];
+    for (int i = 0; i < distinct; i++) {
+      this.attendees[i] = dictionary.nameOf(attendeeIds[i]);
+    }
+    this.hashCode = hashCode(title, when, attendeeIds);
+  }
+
+  /**
+   * Creates an event that shares {@code attendees} and {@code attendeeIds} with other events. The
+   * ids must be sorted and free of duplicates, and neither array may be changed afterwards.
+   */
+  Event(String title, TimeRange when, String[] attendees, int[] attendeeIds) {
+    this.title = title;
+    this.when = when;
+    this.attendees = attendees;
+    this.attendeeIds = attendeeIds;
+    this.hashCode = hashCode(title, when, attendeeIds);
   }
 
   /**
@@ -71,16 +114,44 @@ public final class Event {
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // Return a read-only view so that the caller can't change our internal data.
+    return new AttendeeSet();
+  }
+
+  /**
+   * Returns the ids of the attendees in {@link AttendeeDictionary#shared()}, in ascending order.
+   * Callers must not change the array.
+   */
+  int[] attendeeIds() {
+    return attendeeIds;
+  }
+
+  /**
+   * Returns the names of the attendees, in the order of {@link #attendeeIds}. Callers must not
+   * change the array.
+   */
+  String[] attendeeNames() {
+    return attendees;
+  }
+
+  /**
+   * Returns true if at least one of the attendees has an id in {@code ids}.
+   */
+  boolean hasAnyAttendee(BitSet ids) {
+    if (ids.isEmpty()) {
+      return false;
+    }
+    for (int id : attendeeIds) {
+      if (ids.get(id)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
   public int hashCode() {
-    // For the hash code, just use the title. Most events "should" have different names and will
-    // mainly be used as a way to skip the costly {@code equals()} call.
-    return title.hashCode();
+    return hashCode;
   }
 
   @Override
@@ -89,8 +160,40 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // The ids are sorted and free of duplicates, so equal arrays mean equal sets of attendees.
+    return a.title.equals(b.title) && a.when.equals(b.when)
+        && Arrays.equals(a.attendeeIds, b.attendeeIds);
+  }
+
+  private static int hashCode(String title, TimeRange when, int[] attendeeIds) {
+    // Calendars repeat titles like "Team Sync" a lot, so the time and the attendees are part of the
+    // hash too, like they are part of {@link #equals}.
+    return 31 * (31 * title.hashCode() + when.hashCode()) + Arrays.hashCode(attendeeIds);
+  }
+
+  /**
+   * Read-only set view of the attendees. Looking up a name costs one dictionary lookup and a binary
+   * search over the ids.
+   */
+  private final class AttendeeSet extends AbstractSet<String> {
+    @Override
+    public boolean contains(Object other) {
+      if (!(other instanceof String)) {
+        return false;
+      }
+      int id = AttendeeDictionary.shared().lookup((String) other);
+      return id >= 0 && Arrays.binarySearch(attendeeIds, id) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      // The list returned by {@code Arrays.asList} cannot remove elements.
+      return Arrays.asList(attendees).iterator();
+    }
+
+    @Override
+    public int size() {
+      return attendees.length;
+    }
   }
 }
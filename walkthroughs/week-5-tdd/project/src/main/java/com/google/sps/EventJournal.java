@@ -0,0 +1,535 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the events of a calendar on disk, so that they survive a restart.
+ *
+ * <p>Every added and removed event is appended to a journal file as a record with a CRC32
+ * checksum. To keep appends cheap, the journal is only forced to disk every few records and on
+ * {@link #sync()} and {@link #close()}; a crash can lose the records since the last sync, but
+ * never corrupts older ones. A record that was only partly written when the process stopped is
+ * detected by its checksum and cut off when the journal is opened again.
+ *
+ * <p>{@link #compact()} folds the journal into a snapshot file and starts a new, empty journal.
+ * Every journal has a generation number in its header, and the snapshot records the generation of
+ * the last journal it holds, so the records of a journal that was folded in are never replayed
+ * twice, even if the process stops before the old journal is emptied. The snapshot stores every
+ * distinct string once and the events as fixed-width rows that refer to those strings, and it is
+ * read through {@link FileChannel#map}, so loading it costs little more than creating the events.
+ */
+public final class EventJournal implements Closeable {
+  static final String JOURNAL_FILE = "events.journal";
+  static final String SNAPSHOT_FILE = "events.snapshot";
+
+  private static final int DEFAULT_SYNC_EVERY_RECORDS = 64;
+
+  private static final byte ADD = 1;
+  private static final byte REMOVE = 2;
+
+  // Starts every snapshot file, followed by the format version.
+  private static final int SNAPSHOT_MAGIC = 0x45565453;
+  private static final int SNAPSHOT_VERSION = 2;
+
+  // Starts every journal file, followed by the generation of the journal.
+  private static final int JOURNAL_MAGIC = 0x45564a4e;
+  private static final int JOURNAL_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+  // The record header: the length of the payload and its checksum.
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+  private final Path directory;
+  private final int syncEveryRecords;
+  private final FileChannel journal;
+  private final boolean isNew;
+  private long generation;
+  private int recordsSinceSync;
+  private long recordsSinceCompaction;
+
+  private EventJournal(Path directory, int syncEveryRecords, FileChannel journal, long generation,
+      long records, boolean isNew) {
+    this.directory = directory;
+    this.syncEveryRecords = syncEveryRecords;
+    this.journal = journal;
+    this.isNew = isNew;
+    this.generation = generation;
+    this.recordsSinceCompaction = records;
+  }
+
+  /**
+   * Opens the journal in {@code directory}, creating the directory and an empty journal if needed.
+   */
+  public static EventJournal open(Path directory) throws IOException {
+    return open(directory, DEFAULT_SYNC_EVERY_RECORDS);
+  }
+
+  /**
+   * Opens the journal in {@code directory} and forces it to disk every {@code syncEveryRecords}
+   * records.
+   */
+  public static EventJournal open(Path directory, int syncEveryRecords) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("directory cannot be null");
+    }
+
+    if (syncEveryRecords <= 0) {
+      throw new IllegalArgumentException("syncEveryRecords must be positive");
+    }
+
+    Files.createDirectories(directory);
+    long snapshotGeneration = readSnapshotGeneration(directory.resolve(SNAPSHOT_FILE));
+    FileChannel journal = FileChannel.open(directory.resolve(JOURNAL_FILE),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long generation = readGeneration(journal);
+    if (generation <= snapshotGeneration) {
+      // Either the journal is new, or a compaction stopped after the snapshot was moved into place
+      // but before the journal was emptied. Either way the snapshot holds all of its records.
+      generation = snapshotGeneration + 1;
+      reset(journal, generation);
+    }
+    // Cut off a record that was only partly written, so new records follow the last good one.
+    long records = replay(journal, null, null);
+    journal.position(journal.size());
+    boolean isNew = snapshotGeneration < 0 && records == 0;
+    return new EventJournal(directory, syncEveryRecords, journal, generation, records, isNew);
+  }
+
+  /**
+   * Returns true if nothing was ever stored in the directory when the journal was opened: there was
+   * no snapshot and the journal held no record. Removing every event still leaves their records or
+   * a snapshot behind, so a journal that loads no events is not necessarily new.
+   */
+  public boolean isNew() {
+    return isNew;
+  }
+
+  /**
+   * Returns the events in the snapshot and the journal, in the order they were added. An event
+   * that was added more often than it was removed is in the list that many times.
+   */
+  public synchronized List<Event> load() throws IOException {
+    List<Event> events = new ArrayList<>();
+    long snapshotGeneration = readSnapshot(directory.resolve(SNAPSHOT_FILE), events);
+    Map<Event, Integer> removed = new HashMap<>();
+    if (snapshotGeneration < generation) {
+      replay(journal, events, removed);
+      journal.position(journal.size());
+    }
+    if (removed.isEmpty()) {
+      return events;
+    }
+
+    // Only look events up if some were removed; most loads right after a compaction have none.
+    List<Event> remaining = new ArrayList<>(events.size());
+    for (Event event : events) {
+      Integer count = removed.get(event);
+      if (count == null) {
+        remaining.add(event);
+      } else if (count == 1) {
+        removed.remove(event);
+      } else {
+        removed.put(event, count - 1);
+      }
+    }
+    return remaining;
+  }
+
+  /**
+   * Appends that {@code event} was added.
+   */
+  public synchronized void recordAdd(Event event) throws IOException {
+    append(ADD, event);
+  }
+
+  /**
+   * Appends that one copy of {@code event} was removed. The event must have been added before.
+   */
+  public synchronized void recordRemove(Event event) throws IOException {
+    append(REMOVE, event);
+  }
+
+  /**
+   * Forces all appended records to disk.
+   */
+  public synchronized void sync() throws IOException {
+    journal.force(false);
+    recordsSinceSync = 0;
+  }
+
+  /**
+   * Returns the number of records in the journal, which is the number of records a load has to
+   * replay on top of the snapshot.
+   */
+  public synchronized long recordsSinceCompaction() {
+    return recordsSinceCompaction;
+  }
+
+  /**
+   * Writes the current events to a new snapshot and starts a new, empty journal. The new snapshot
+   * replaces the old one in one step. A crash before that leaves the old snapshot and the journal
+   * in place, and a crash after it leaves a journal whose generation the snapshot already holds,
+   * which {@link #open} then empties.
+   */
+  public synchronized void compact() throws IOException {
+    List<Event> events = load();
+    Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+    writeSnapshot(temporary, events, generation);
+    Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    reset(journal, generation + 1);
+    generation++;
+    recordsSinceSync = 0;
+    recordsSinceCompaction = 0;
+  }
+
+  /**
+   * Compacts the journal like {@link #compact()} if it holds at least {@code records} records.
+   * Checking and compacting are one step, so callers that race each other compact only once.
+   *
+   * @return true if the journal was compacted
+   */
+  public synchronized boolean compactIfAtLeast(long records) throws IOException {
+    if (recordsSinceCompaction < records) {
+      return false;
+    }
+    compact();
+    return true;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (journal.isOpen()) {
+      sync();
+      journal.close();
+    }
+  }
+
+  private void append(byte operation, Event event) throws IOException {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    ByteBuffer payload = encode(operation, event);
+    CRC32 checksum = new CRC32();
+    checksum.update(payload.array(), 0, payload.limit());
+
+    ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.limit());
+    record.putInt(payload.limit());
+    record.putInt((int) checksum.getValue());
+    record.put(payload);
+    record.flip();
+    while (record.hasRemaining()) {
+      journal.write(record);
+    }
+
+    recordsSinceCompaction++;
+    if (++recordsSinceSync >= syncEveryRecords) {
+      sync();
+    }
+  }
+
+  /**
+   * Returns the generation in the header of {@code journal}, or -1 if the header was never
+   * completely written.
+   */
+  private static long readGeneration(FileChannel journal) throws IOException {
+    if (journal.size() < JOURNAL_HEADER_BYTES) {
+      return -1;
+    }
+    ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_BYTES);
+    while (header.hasRemaining()) {
+      journal.read(header, header.position());
+    }
+    header.flip();
+    if (header.getInt() != JOURNAL_MAGIC) {
+      throw new IOException("Not a journal");
+    }
+    return header.getLong();
+  }
+
+  /**
+   * Empties {@code journal} and starts it over with the header of {@code generation}.
+   */
+  private static void reset(FileChannel journal, long generation) throws IOException {
+    journal.truncate(0);
+    ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_BYTES);
+    header.putInt(JOURNAL_MAGIC);
+    header.putLong(generation);
+    header.flip();
+    while (header.hasRemaining()) {
+      journal.write(header, header.position());
+    }
+    journal.position(JOURNAL_HEADER_BYTES);
+    journal.force(true);
+  }
+
+  /**
+   * Adds the events of the records of {@code journal} to {@code added} and counts the removed ones
+   * in {@code removed}, then truncates the journal after the last complete record. If
+   * {@code added} is null, the records are only checked.
+   *
+   * @return the number of complete records
+   */
+  private static long replay(FileChannel journal, List<Event> added, Map<Event, Integer> removed)
+      throws IOException {
+    long size = journal.size() - JOURNAL_HEADER_BYTES;
+    if (size <= 0) {
+      return 0;
+    }
+
+    MappedByteBuffer buffer =
+        journal.map(FileChannel.MapMode.READ_ONLY, JOURNAL_HEADER_BYTES, size);
+    long records = 0;
+    int goodEnd = 0;
+    CRC32 checksum = new CRC32();
+    while (buffer.remaining() >= HEADER_BYTES) {
+      int length = buffer.getInt();
+      int expected = buffer.getInt();
+      if (length <= 0 || length > buffer.remaining()) {
+        break;
+      }
+      ByteBuffer payload = buffer.slice();
+      payload.limit(length);
+      checksum.reset();
+      checksum.update(payload.duplicate());
+      if ((int) checksum.getValue() != expected) {
+        break;
+      }
+
+      if (added != null) {
+        byte operation = payload.get();
+        Event event = decodeEvent(payload);
+        if (operation == ADD) {
+          added.add(event);
+        } else {
+          removed.merge(event, 1, Integer::sum);
+        }
+      }
+      buffer.position(buffer.position() + length);
+      goodEnd = buffer.position();
+      records++;
+    }
+
+    if (goodEnd < size) {
+      journal.truncate(JOURNAL_HEADER_BYTES + goodEnd);
+    }
+    return records;
+  }
+
+  private static ByteBuffer encode(byte operation, Event event) {
+    List<byte[]> strings = new ArrayList<>();
+    strings.add(event.getTitle().getBytes(StandardCharsets.UTF_8));
+    for (String attendee : event.getAttendees()) {
+      strings.add(attendee.getBytes(StandardCharsets.UTF_8));
+    }
+    int length = 1 + 3 * Integer.BYTES;
+    for (byte[] string : strings) {
+      length += Integer.BYTES + string.length;
+    }
+
+    ByteBuffer payload = ByteBuffer.allocate(length);
+    payload.put(operation);
+    payload.putInt(event.getWhen().start());
+    payload.putInt(event.getWhen().duration());
+    payload.putInt(strings.size() - 1);
+    for (byte[] string : strings) {
+      payload.putInt(string.length);
+      payload.put(string);
+    }
+    payload.flip();
+    return payload;
+  }
+
+  private static Event decodeEvent(ByteBuffer payload) {
+    int start = payload.getInt();
+    int duration = payload.getInt();
+    int attendeeCount = payload.getInt();
+    String title = decodeString(payload);
+    List<String> attendees = new ArrayList<>(attendeeCount);
+    for (int i = 0; i < attendeeCount; i++) {
+      attendees.add(decodeString(payload));
+    }
+    return new Event(title, TimeRange.fromStartDuration(start, duration), attendees);
+  }
+
+  private static String decodeString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes {@code events} to {@code path} as a snapshot: a header with the generation of the last
+   * journal folded in, a table of the distinct strings, one row per event and a checksum of
+   * everything before it.
+   */
+  private static void writeSnapshot(Path path, List<Event> events, long generation)
+      throws IOException {
+    Map<String, Integer> stringIds = new HashMap<>();
+    List<byte[]> strings = new ArrayList<>();
+    int rowInts = 0;
+    for (Event event : events) {
+      stringId(event.getTitle(), stringIds, strings);
+      for (String attendee : event.getAttendees()) {
+        stringId(attendee, stringIds, strings);
+      }
+      rowInts += 4 + event.getAttendees().size();
+    }
+
+    long length = 4L * Integer.BYTES + Long.BYTES + (long) rowInts * Integer.BYTES;
+    for (byte[] string : strings) {
+      length += Integer.BYTES + string.length;
+    }
+    if (length + Long.BYTES > Integer.MAX_VALUE) {
+      throw new IOException("Snapshot too large: " + length + " bytes");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) length + Long.BYTES);
+    buffer.putInt(SNAPSHOT_MAGIC);
+    buffer.putInt(SNAPSHOT_VERSION);
+    buffer.putLong(generation);
+    buffer.putInt(strings.size());
+    for (byte[] string : strings) {
+      buffer.putInt(string.length);
+      buffer.put(string);
+    }
+    buffer.putInt(events.size());
+    for (Event event : events) {
+      buffer.putInt(event.getWhen().start());
+      buffer.putInt(event.getWhen().duration());
+      buffer.putInt(stringIds.get(event.getTitle()));
+      buffer.putInt(event.getAttendees().size());
+      for (String attendee : event.getAttendees()) {
+        buffer.putInt(stringIds.get(attendee));
+      }
+    }
+    CRC32 checksum = new CRC32();
+    checksum.update(buffer.array(), 0, buffer.position());
+    buffer.putLong(checksum.getValue());
+    buffer.flip();
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+  }
+
+  /**
+   * Returns the generation of the last journal folded into the snapshot at {@code path}, or -1 if
+   * there is no snapshot. Only the header is read.
+   */
+  private static long readSnapshotGeneration(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return -1;
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + Long.BYTES);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          throw new IOException("Snapshot too short: " + path);
+        }
+      }
+      header.flip();
+      if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION) {
+        throw new IOException("Not a snapshot: " + path);
+      }
+      return header.getLong();
+    }
+  }
+
+  /**
+   * Adds the events of the snapshot at {@code path} to {@code events}. A missing snapshot has no
+   * events.
+   *
+   * @return the generation of the last journal folded into the snapshot, or -1 if there is none
+   */
+  private static long readSnapshot(Path path, List<Event> events) throws IOException {
+    if (!Files.exists(path)) {
+      return -1;
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < 4L * Integer.BYTES + 2 * Long.BYTES) {
+        throw new IOException("Snapshot too short: " + path);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+      ByteBuffer body = buffer.duplicate();
+      body.limit((int) size - Long.BYTES);
+      CRC32 checksum = new CRC32();
+      checksum.update(body);
+      if (checksum.getValue() != buffer.getLong((int) size - Long.BYTES)) {
+        throw new IOException("Snapshot checksum mismatch: " + path);
+      }
+
+      try {
+        if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+          throw new IOException("Not a snapshot: " + path);
+        }
+        long generation = buffer.getLong();
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+          strings[i] = decodeString(buffer);
+        }
+        int eventCount = buffer.getInt();
+        for (int i = 0; i < eventCount; i++) {
+          int start = buffer.getInt();
+          int duration = buffer.getInt();
+          String title = strings[buffer.getInt()];
+          String[] attendees = new String[buffer.getInt()];
+          for (int j = 0; j < attendees.length; j++) {
+            attendees[j] = strings[buffer.getInt()];
+          }
+          events.add(new Event(title, TimeRange.fromStartDuration(start, duration),
+              Arrays.asList(attendees)));
+        }
+        return generation;
+      } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+        throw new IOException("Snapshot is damaged: " + path, e);
+      }
+    }
+  }
+
+  private static void stringId(String string, Map<String, Integer> stringIds,
+      List<byte[]> strings) {
+    if (!stringIds.containsKey(string)) {
+      stringIds.put(string, strings.size());
+      strings.add(string.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
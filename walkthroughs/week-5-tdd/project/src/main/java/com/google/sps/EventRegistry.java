@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives every distinct event a dense {@code int} id, starting at 0, and keeps one copy of each. The
+ * copies share their titles and their sets of attendees with each other, so a calendar where the
+ * same title or the same group of people comes up again and again stores each of them once.
+ *
+ * <p>Registering an event costs one hash lookup, so deduplicating a calendar of N events takes
+ * O(N) time. Like {@link AttendeeDictionary}, ids are never reused or forgotten. The registry can
+ * be used from several threads.
+ */
+public final class EventRegistry {
+  // The one copy of every title. Guarded by {@code this}.
+  private final Map<String, String> titles = new HashMap<>();
+
+  // The one copy of every set of attendees. Guarded by {@code this}.
+  private final Map<AttendeeSet, AttendeeSet> attendeeSets = new HashMap<>();
+
+  // The id of every event, and the events in id order. Guarded by {@code this}.
+  private final Map<Event, Integer> ids = new HashMap<>();
+  private final List<Event> events = new ArrayList<>();
+
+  /**
+   * Returns the id of {@code event}, giving it the next free id if no equal event has one yet.
+   */
+  public synchronized int register(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    Integer id = ids.get(event);
+    if (id != null) {
+      return id;
+    }
+    AttendeeSet attendees = intern(new AttendeeSet(event.attendeeNames(), event.attendeeIds()));
+    Event copy =
+        new Event(intern(event.getTitle()), event.getWhen(), attendees.names, attendees.ids);
+    int newId = events.size();
+    events.add(copy);
+    ids.put(copy, newId);
+    return newId;
+  }
+
+  /**
+   * Returns the registered copy of {@code event}, registering it first if needed.
+   */
+  public synchronized Event intern(Event event) {
+    return events.get(register(event));
+  }
+
+  /**
+   * Returns the registered copies of {@code events} without duplicates, in the order they first
+   * appear.
+   */
+  public synchronized List<Event> registerAll(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    List<Event> distinct = new ArrayList<>();
+    BitSet seen = new BitSet();
+    for (Event event : events) {
+      int id = register(event);
+      if (!seen.get(id)) {
+        seen.set(id);
+        distinct.add(this.events.get(id));
+      }
+    }
+    return distinct;
+  }
+
+  /**
+   * Returns the id of {@code event}, or -1 if no equal event was registered. Unlike
+   * {@link #register}, this never adds an event.
+   */
+  public synchronized int lookup(Event event) {
+    Integer id = ids.get(event);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Returns the registered event with the id {@code id}.
+   */
+  public synchronized Event event(int id) {
+    if (id < 0 || id >= events.size()) {
+      throw new IllegalArgumentException("Unknown id: " + id);
+    }
+    return events.get(id);
+  }
+
+  /**
+   * Returns the number of distinct events in the registry.
+   */
+  public synchronized int size() {
+    return events.size();
+  }
+
+  /**
+   * Returns the number of distinct titles that the registered events have.
+   */
+  public synchronized int titleCount() {
+    return titles.size();
+  }
+
+  /**
+   * Returns the number of distinct sets of attendees that the registered events have.
+   */
+  public synchronized int attendeeSetCount() {
+    return attendeeSets.size();
+  }
+
+  private String intern(String title) {
+    String copy = titles.putIfAbsent(title, title);
+    return copy != null ? copy : title;
+  }
+
+  private AttendeeSet intern(AttendeeSet attendees) {
+    AttendeeSet copy = attendeeSets.putIfAbsent(attendees, attendees);
+    return copy != null ? copy : attendees;
+  }
+
+  /**
+   * The attendees of an event, compared by their sorted ids.
+   */
+  private static final class AttendeeSet {
+    private final String[] names;
+    private final int[] ids;
+
+    AttendeeSet(String[] names, int[] ids) {
+      this.names = names;
+      this.ids = ids;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(ids);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof AttendeeSet && Arrays.equals(ids, ((AttendeeSet) other).ids);
+    }
+  }
+}
@@ -0,0 +1,275 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Stores a large number of events in columns outside the Java heap. Every event is a row with its
+ * start, duration, title id and the position of its attendees in a shared column of attendee ids.
+ * The columns live in direct {@link ByteBuffer}s, so millions of events cost the garbage collector
+ * almost nothing. Titles are kept once each in a small dictionary, and attendee ids come from
+ * {@link AttendeeDictionary#shared()}.
+ *
+ * <p>Rows can be read one field at a time, and {@link #forEachRowOf} visits the rows of a single
+ * attendee by following a chain through the attendee column, so scanning a calendar never needs
+ * to create an {@link Event}.
+ *
+ * <p>Events can be added but not removed. The store is not thread-safe.
+ */
+public final class EventStore {
+  // One entry per row.
+  private final IntColumn starts;
+  private final IntColumn durations;
+  private final IntColumn titleIds;
+  // Where the attendees of each row begin in the attendee columns. The attendees of row {@code r}
+  // are at {@code attendeeOffsets[r]} up to {@code attendeeOffsets[r + 1]}.
+  private final IntColumn attendeeOffsets;
+
+  // One entry per attendee of a row: the attendee id, the row, and the previous entry of the same
+  // attendee, or -1.
+  private final IntColumn attendeeIds;
+  private final IntColumn attendeeRows;
+  private final IntColumn previousOfAttendee;
+  // The last entry of every attendee id, or -1.
+  private final IntColumn lastOfAttendee;
+
+  private final Map<String, Integer> titleIdsByTitle = new HashMap<>();
+  private final List<String> titles = new ArrayList<>();
+
+  /**
+   * Creates an empty store.
+   */
+  public EventStore() {
+    this(1024);
+  }
+
+  /**
+   * Creates an empty store with room for about {@code expectedEvents} events before it has to
+   * grow.
+   */
+  public EventStore(int expectedEvents) {
+    if (expectedEvents < 0) {
+      throw new IllegalArgumentException("expectedEvents cannot be negative");
+    }
+
+    int capacity = Math.max(expectedEvents, 16);
+    starts = new IntColumn(capacity);
+    durations = new IntColumn(capacity);
+    titleIds = new IntColumn(capacity);
+    attendeeOffsets = new IntColumn(capacity + 1);
+    attendeeOffsets.add(0);
+    attendeeIds = new IntColumn(2 * capacity);
+    attendeeRows = new IntColumn(2 * capacity);
+    previousOfAttendee = new IntColumn(2 * capacity);
+    lastOfAttendee = new IntColumn(capacity);
+  }
+
+  /**
+   * Creates a store with {@code events}.
+   */
+  public static EventStore of(Collection<Event> events) {
+    EventStore store = new EventStore(events.size());
+    for (Event event : events) {
+      store.add(event);
+    }
+    return store;
+  }
+
+  /**
+   * Adds {@code event} and returns its row.
+   */
+  public int add(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    int row = starts.size();
+    starts.add(event.getWhen().start());
+    durations.add(event.getWhen().duration());
+    titleIds.add(titleId(event.getTitle()));
+    for (int attendeeId : event.attendeeIds()) {
+      int entry = attendeeIds.size();
+      attendeeIds.add(attendeeId);
+      attendeeRows.add(row);
+      while (lastOfAttendee.size() <= attendeeId) {
+        lastOfAttendee.add(-1);
+      }
+      previousOfAttendee.add(lastOfAttendee.get(attendeeId));
+      lastOfAttendee.set(attendeeId, entry);
+    }
+    attendeeOffsets.add(attendeeIds.size());
+    return row;
+  }
+
+  /**
+   * Returns the number of rows.
+   */
+  public int size() {
+    return starts.size();
+  }
+
+  /**
+   * Returns the start of the event in {@code row}, in minutes.
+   */
+  public int start(int row) {
+    return starts.get(row);
+  }
+
+  /**
+   * Returns the duration of the event in {@code row}, in minutes.
+   */
+  public int duration(int row) {
+    return durations.get(row);
+  }
+
+  /**
+   * Returns the title of the event in {@code row}.
+   */
+  public String title(int row) {
+    return titles.get(titleIds.get(row));
+  }
+
+  /**
+   * Returns the number of attendees of the event in {@code row}.
+   */
+  public int attendeeCount(int row) {
+    return attendeeOffsets.get(row + 1) - attendeeOffsets.get(row);
+  }
+
+  /**
+   * Returns the id of the attendee number {@code index} of the event in {@code row}. Attendees are
+   * sorted by id.
+   */
+  public int attendeeId(int row, int index) {
+    if (index < 0 || index >= attendeeCount(row)) {
+      throw new IndexOutOfBoundsException("Index: " + index);
+    }
+    return attendeeIds.get(attendeeOffsets.get(row) + index);
+  }
+
+  /**
+   * Returns the event in {@code row} as a new {@code Event}.
+   */
+  public Event event(int row) {
+    AttendeeDictionary dictionary = AttendeeDictionary.shared();
+    List<String> attendees = new ArrayList<>(attendeeCount(row));
+    for (int i = 0; i < attendeeCount(row); i++) {
+      attendees.add(dictionary.nameOf(attendeeId(row, i)));
+    }
+    return new Event(title(row), TimeRange.fromStartDuration(start(row), duration(row)), attendees);
+  }
+
+  /**
+   * Calls {@code action} with every row, in the order the rows were added.
+   */
+  public void forEachRow(IntConsumer action) {
+    for (int row = 0; row < size(); row++) {
+      action.accept(row);
+    }
+  }
+
+  /**
+   * Calls {@code action} with every row that {@code attendee} attends, the most recently added row
+   * first. Only the rows of that attendee are looked at.
+   */
+  public void forEachRowOf(String attendee, IntConsumer action) {
+    int attendeeId = AttendeeDictionary.shared().lookup(attendee);
+    if (attendeeId < 0 || attendeeId >= lastOfAttendee.size()) {
+      return;
+    }
+    for (int entry = lastOfAttendee.get(attendeeId); entry >= 0;
+        entry = previousOfAttendee.get(entry)) {
+      action.accept(attendeeRows.get(entry));
+    }
+  }
+
+  /**
+   * Adds the busy times of {@code attendees} to {@code busyTimes}.
+   *
+   * @return the number of rows visited, which counts a row once for every one of
+   *     {@code attendees} that attends it
+   */
+  int addBusyTimes(Collection<String> attendees, TimeRangeArray busyTimes) {
+    int before = busyTimes.size();
+    for (String attendee : attendees) {
+      forEachRowOf(attendee, row -> busyTimes.add(start(row), duration(row)));
+    }
+    return busyTimes.size() - before;
+  }
+
+  private int titleId(String title) {
+    Integer id = titleIdsByTitle.get(title);
+    if (id == null) {
+      id = titles.size();
+      titles.add(title);
+      titleIdsByTitle.put(title, id);
+    }
+    return id;
+  }
+
+  /**
+   * A growable column of {@code int}s in a direct buffer.
+   */
+  private static final class IntColumn {
+    private ByteBuffer buffer;
+    private int size;
+
+    IntColumn(int capacity) {
+      buffer = allocate(capacity);
+    }
+
+    int size() {
+      return size;
+    }
+
+    int get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+      }
+      return buffer.getInt(index * Integer.BYTES);
+    }
+
+    void set(int index, int value) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+      }
+      buffer.putInt(index * Integer.BYTES, value);
+    }
+
+    void add(int value) {
+      if (size * Integer.BYTES == buffer.capacity()) {
+        ByteBuffer grown = allocate(2 * size);
+        buffer.clear();
+        grown.put(buffer);
+        buffer = grown;
+      }
+      buffer.putInt(size * Integer.BYTES, value);
+      size++;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+      return ByteBuffer.allocateDirect(Math.max(capacity, 1) * Integer.BYTES)
+          .order(ByteOrder.nativeOrder());
+    }
+  }
+}
@@ -14,200 +14,229 @@
 
 package com.google.sps;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class FindMeetingQuery {
-  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    // Consider the edge cases where there is no attendes or the meeting duration is more than 24 hours or there are no known events
+  private final MeetingQueryEngine engine;
 
-    // Options where there are no Attendees and no optional attendees as well
-    if (request.getAttendees().isEmpty() && request.getOptionalAttendees().isEmpty()) {
-      return Arrays.asList(TimeRange.WHOLE_DAY);
+  // Answers the requests that always go through the sweep line. This is {@code engine} if it is a
+  // sweep line, so that its settings apply.
+  private final SweepLineEngine sweepLine;
+
+  private final SchedulerMetrics metrics = SchedulerMetrics.shared();
+
+  /**
+   * Creates a query that uses the {@link SweepLineEngine}.
+   */
+  public FindMeetingQuery() {
+    this(new SweepLineEngine());
+  }
+
+  /**
+   * Creates a query that uses {@code engine} to find the meeting times.
+   *
+   * @param engine The engine that answers the requests. Must be non-null.
+   */
+  public FindMeetingQuery(MeetingQueryEngine engine) {
+    if (engine == null) {
+      throw new IllegalArgumentException("engine cannot be null");
     }
+    this.engine = engine;
+    this.sweepLine =
+        engine instanceof SweepLineEngine ? (SweepLineEngine) engine : new SweepLineEngine();
+  }
 
-    // No options when meeting request is too long (more than a day)
-    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
-      return Arrays.asList();
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    Collection<TimeRange> edgeCase = queryEdgeCase(request);
+    if (edgeCase != null) {
+      return edgeCase;
     }
-    
-    // No events
+
+    // No events but there is a valid meeting request
     if (events.isEmpty()) {
-      // No events but there is a valid meeting request
-      if (request.getDuration() <= TimeRange.WHOLE_DAY.duration()) {
-        return Arrays.asList(TimeRange.WHOLE_DAY);
-      }
-      return Arrays.asList();
+      return Arrays.asList(TimeRange.WHOLE_DAY);
     }
 
-    // Call the helper function for all other cases that no edge cases
-    return queryHelper(events, request);
+    // Let the engine handle all other cases that are not edge cases
+    long start = metrics.startTimer();
+    Collection<TimeRange> times = engine.query(events, request);
+    metrics.stopTimer(SchedulerMetrics.Phase.QUERY, start);
+    return times;
   }
 
   /**
-   * This is a helper function which returns the possible time ranges for the requested meeting
-   * @param events These are all the known events that are already scheduled
-   * @param request This is a meeting request that is to be scheduled
-   * @return a collection of all possible times that {@code request} can be scheduled
+   * Answers {@code request} from busy times that are already grouped by attendee, such as a
+   * {@link CalendarIndex}, instead of scanning every event. Requests are always answered with the
+   * {@link SweepLineEngine}, whatever engine this query was created with.
    */
-  private Collection<TimeRange> queryHelper(Collection<Event> events, MeetingRequest request) {
-    // Define the variables to be used
-    long durationOfMeeting = request.getDuration();
-
-    // List of all possible time ranges that attendees can have a meeting
-    Collection<TimeRange> possibleTimes = new ArrayList<>();
-    // Create a list of attendees and add all the attendees to that list
-    Collection<String> attendees = new ArrayList<>();
-    attendees.addAll(request.getAttendees());
-
-    // Create a list of all attendees (optional and mandatory) for the requested meeting
-    Collection<String> mandatoryAndOptionalAttendees = new ArrayList<>();
-    mandatoryAndOptionalAttendees.addAll(request.getOptionalAttendees());
-    mandatoryAndOptionalAttendees.addAll(attendees);
-    
-    // The algorithm is working on principles of sets. For instance set A represents mandatory attendees
-    // and set B represents optional attendees. If there is an intersection for a time that works for both, return that time
-    // otherwise, return time that works for only mandatory attendees
-
-    // Collection of timeranges that can not work for the proposed schedule
-    // These are times when mandatory attendees have an event scheduled at that particular time
-    List<TimeRange> attendeesCannotScheduleHere = cannotSheduleMeeting(attendees, events); 
-
-    // Get the timeranges for the mandatory and optional attendees
-    List<TimeRange>  mandatoryAndOptionalAttendeesCannotScheduleHere = cannotSheduleMeeting(mandatoryAndOptionalAttendees, events);
-
-    // Return the whole day if all attendees are free for the whole day and there are no optional attendees
-    if (mandatoryAndOptionalAttendeesCannotScheduleHere.isEmpty()) 
-      return Arrays.asList(TimeRange.WHOLE_DAY);
+  public Collection<TimeRange> query(BusyTimeSource calendar, MeetingRequest request) {
+    Collection<TimeRange> edgeCase = queryEdgeCase(request);
+    return edgeCase != null ? edgeCase : timedQuery(calendar, request);
+  }
 
-    // Sort the time ranges by the end time in ascending order
-    Collections.sort(attendeesCannotScheduleHere, TimeRange.ORDER_BY_END);
-    Collections.sort(mandatoryAndOptionalAttendeesCannotScheduleHere, TimeRange.ORDER_BY_END);
+  /**
+   * Answers {@code request} from the events in {@code store} without creating an {@code Event} for
+   * them. Only the rows of the requested attendees are read. Requests are always answered with the
+   * {@link SweepLineEngine}, whatever engine this query was created with.
+   */
+  public Collection<TimeRange> query(EventStore store, MeetingRequest request) {
+    Collection<TimeRange> edgeCase = queryEdgeCase(request);
+    if (edgeCase != null) {
+      return edgeCase;
+    }
+    long start = metrics.startTimer();
+    Collection<TimeRange> times = sweepLine.query(store, request);
+    metrics.stopTimer(SchedulerMetrics.Phase.QUERY, start);
+    return times;
+  }
 
-    // Remove the time ranges which are part of longer time ranges
-    removeNestedTimes(attendeesCannotScheduleHere);
-    removeNestedTimes(mandatoryAndOptionalAttendeesCannotScheduleHere);
+  /**
+   * Returns the same times as {@link #query(Collection, MeetingRequest)}, in the same order, but
+   * only finds each one when it is asked for. A caller that stops after the first few times skips
+   * the search through the rest of the day. The times are always found with the
+   * {@link SweepLineEngine}, whatever engine this query was created with.
+   */
+  public Iterator<TimeRange> iterator(Collection<Event> events, MeetingRequest request) {
+    Collection<TimeRange> edgeCase = queryEdgeCase(request);
+    return edgeCase != null ? edgeCase.iterator() : sweepLine.iterator(events, request);
+  }
 
-    // Check times that work for both optional and mandatory attendees
-    addRequestedMeetingToList(mandatoryAndOptionalAttendeesCannotScheduleHere, durationOfMeeting, possibleTimes);
-    // If there is no time that works for both optional and mandatory attendees, check for only mandatory attendees
-    if(possibleTimes.isEmpty()) {
-      addRequestedMeetingToList(attendeesCannotScheduleHere, durationOfMeeting, possibleTimes);
-    }
-    return possibleTimes;
+  /**
+   * Returns the times of {@link #iterator(Collection, MeetingRequest)} as a sequential stream, for
+   * example to {@code limit} them. Close the stream when done with it, so that a search that was
+   * cut short is still recorded in {@link SchedulerMetrics}.
+   */
+  public Stream<TimeRange> stream(Collection<Event> events, MeetingRequest request) {
+    return toStream(iterator(events, request));
+  }
+
+  /**
+   * Returns the same times as {@link #query(BusyTimeSource, MeetingRequest)} as a sequential
+   * stream that only finds each time when it is needed. Like
+   * {@link #stream(Collection, MeetingRequest)}, it should be closed.
+   */
+  public Stream<TimeRange> stream(BusyTimeSource calendar, MeetingRequest request) {
+    Collection<TimeRange> edgeCase = queryEdgeCase(request);
+    return toStream(
+        edgeCase != null ? edgeCase.iterator() : sweepLine.iterator(calendar, request));
   }
+
   /**
-   * Method runs the algorithm for adding possible times which work for either both mandatory and optional attendees 
-   * or just mandatory attendees
-   * @param attendeesTimeranges is a list of all the attendees for the meeeting that we are considering
-   * @param durationOfMeeting is the length / duration of the requested meeting
-   * @param possibleTimes this is a list of all the possible times that we can schedule the meeting
+   * Returns the times inside {@code window}, which can span many days, when the meeting described
+   * by {@code request} can be scheduled. Only the events of {@code calendar} that overlap the
+   * window are looked at, and only the occurrences of its {@link RecurringEvent}s that fall inside
+   * the window are worked out.
    */
-  private void addRequestedMeetingToList(List<TimeRange> attendeesTimeranges, long durationOfMeeting, Collection<TimeRange> possibleTimes) {
-    int START_OF_DAY = TimeRange.START_OF_DAY;
-    int END_OF_DAY = TimeRange.END_OF_DAY;
-
-    for (int index = 0; index < attendeesTimeranges.size(); index++) {
-      TimeRange currentTimeRange = attendeesTimeranges.get(index);
-      int startOfCurrentTimeRange = currentTimeRange.start();
-      int endOfCurrentTimeRange = currentTimeRange.end();
-
-      // We have 3 different ways we can schedule the meeting at according to the list of time ranges
-      // 1. When we have the first end time, we can schedule before it's start time and start of day.
-      // It is also the first start time because we removed the nested times
-      // 2. Times which are in between the first and last end time in the time ranges
-      // 3. The last end time, we can check if we can schedule an item between it and the end of day
-      // First(1) way
-      if (index == 0) {
-        addPossibleTime(START_OF_DAY, startOfCurrentTimeRange, false, durationOfMeeting, possibleTimes);
-      }
-      // Second(2) way
-      if (index + 1 < attendeesTimeranges.size()) {
-        TimeRange nextTimeRange = attendeesTimeranges.get(index + 1);
-        addPossibleTime(endOfCurrentTimeRange, nextTimeRange.start(), false, durationOfMeeting, possibleTimes);
-      }
-      //Third(3) way
-      if ((index == attendeesTimeranges.size() - 1) && endOfCurrentTimeRange < END_OF_DAY) {
-          addPossibleTime(endOfCurrentTimeRange, END_OF_DAY, true, durationOfMeeting, possibleTimes);
-      }
-    }
+  public List<HorizonRange> query(
+      HorizonCalendar calendar, MeetingRequest request, HorizonRange window) {
+    return calendar.query(request, window);
   }
 
   /**
-   * Create and check if timerange is appropriate for scheduling requesting time.
-   * If an available time is found, it is added to {@code possibleTimes}
-   * @param start represents the start time for the time range we want to create
-   * @param end represents the end time for the time range we want to create
-   * @param inclusive this tells us if we would like to include the end time in our time range or not
-   * @param durationOfMeeting the duration of the requested meeting
-   * @param possibleTimes this is a list of all the possible times that we can schedule the meeting
+   * Answers many requests over the same {@code events}. The busy times are grouped by attendee
+   * once, and the requests are then answered in parallel on the common {@link ForkJoinPool}.
+   * Requests are always answered with the {@link SweepLineEngine}, whatever engine this query was
+   * created with.
+   *
+   * @return the answer to every request, in the same order as {@code requests}
    */
-  private void addPossibleTime(int start, int end, boolean inclusive, long durationOfMeeting, Collection<TimeRange> possibleTimes) {
-    TimeRange possibleTime = TimeRange.fromStartEnd(start, end, inclusive);
-    if (possibleTime.duration() >= durationOfMeeting && !possibleTimes.contains(possibleTime)) {
-        possibleTimes.add(possibleTime);
-    }
+  public List<Collection<TimeRange>> queryAll(
+      Collection<Event> events, List<MeetingRequest> requests) {
+    return queryAll(new BusyTimeIndex(events), requests);
   }
 
-  /** 
-   * Check for events which attendees are attending and mark those time ranges
-   * @param attendees is a collection of all the attendees for the required meeting
-   * @param events is a collection of all the events that are known
-   * @return a collection of all the time ranges when the {@code attendees} are busy and we cannot schedule meetings there
-  */
-  private List<TimeRange> cannotSheduleMeeting(Collection<String> attendees, Collection<Event> events) {
-    List<TimeRange> attendeesConflictingTimes = new ArrayList<>();
-    for (String currentAttendee: attendees) {
-      for (Event currentEvent: events) {
-        // Check to see if attendee attends the current event
-        if (isAttendeeOfEvent(currentAttendee, currentEvent)) {
-          attendeesConflictingTimes.add(currentEvent.getWhen());
-        }
-      }
-    }
-    return attendeesConflictingTimes;
+  /**
+   * Answers many requests like {@link #queryAll(Collection, List)}, but takes the busy times from
+   * {@code calendar}, such as a {@link CalendarIndex} that is kept up to date.
+   *
+   * @return the answer to every request, in the same order as {@code requests}
+   */
+  public List<Collection<TimeRange>> queryAll(
+      BusyTimeSource calendar, List<MeetingRequest> requests) {
+    return requests.parallelStream()
+        .map(request -> {
+          Collection<TimeRange> edgeCase = queryEdgeCase(request);
+          return edgeCase != null ? edgeCase : timedQuery(calendar, request);
+        })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the times that work for all mandatory attendees and for as many optional attendees as
+   * possible, instead of dropping all optional attendees when they cannot all attend. Every slot
+   * reports how many optional attendees can attend. See {@link MaxOptionalAttendeesQuery}.
+   */
+  public List<MeetingSlot> queryMaxOptional(Collection<Event> events, MeetingRequest request) {
+    return new MaxOptionalAttendeesQuery().query(events, request);
+  }
+
+  /**
+   * Returns how many of {@code people} are free at every minute of the day, and which meeting times
+   * the most of them can attend. See {@link AvailabilityHeatmap}.
+   */
+  public AvailabilityHeatmap availability(Collection<Event> events, Collection<String> people) {
+    return AvailabilityHeatmap.of(events, people);
   }
 
   /**
-   * Check if an event has this person as an attendee
-   * @param attendee represents the person we would like to check if they are attending a particular event
-   * @param event represents an event
-   * @return true if {@code attendee} is an attendee of {@code event}
+   * Places all of {@code requests} at once, without conflicts with {@code events} or with each
+   * other, placing the most constrained meetings first. See {@link MeetingPlanner}.
    */
-  private boolean isAttendeeOfEvent(String attendee, Event event) {
-    return event.getAttendees().contains(attendee);
+  public MeetingPlan plan(Collection<Event> events, List<MeetingRequest> requests) {
+    return new MeetingPlanner().plan(events, requests);
   }
 
   /**
-   * Remove all the times that are nested in another time
-   * For instance in this case: |---------|
-   *                               |---|
-   * We will remove the short time in order to have few times to cross check over
-   * @param attendeesTimeranges holds a collection of timeranges that we would like to trim
+   * Returns the earliest time when the meeting described by {@code request} can take place, using
+   * the same rules for optional attendees as {@link #query}. To keep answering while events are
+   * added and removed, use an {@link EarliestFitIndex} directly.
    */
-  private void removeNestedTimes(List<TimeRange> attendeesTimeranges) {
-    // Keep track of the indices to be removed
-    List<Integer> indicesToRemove = new ArrayList<>();
-    for (int i = 0; i < attendeesTimeranges.size(); i++) {
-      for (int j = i + 1; j < attendeesTimeranges.size(); j++) {
-        if (attendeesTimeranges.get(i).contains(attendeesTimeranges.get(j))) {
-          indicesToRemove.add(j);
-        }else if (attendeesTimeranges.get(j).contains(attendeesTimeranges.get(i))) {
-          indicesToRemove.add(i);
-        }
-      }
+  public Optional<TimeRange> earliestFit(Collection<Event> events, MeetingRequest request) {
+    return new EarliestFitIndex(events, request).earliestFit();
+  }
+
+  private Collection<TimeRange> timedQuery(BusyTimeSource calendar, MeetingRequest request) {
+    long start = metrics.startTimer();
+    Collection<TimeRange> times = sweepLine.query(calendar, request);
+    metrics.stopTimer(SchedulerMetrics.Phase.QUERY, start);
+    return times;
+  }
+
+  private static Stream<TimeRange> toStream(Iterator<TimeRange> times) {
+    Stream<TimeRange> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+        times, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    // Edge cases come from a plain list and have nothing to record.
+    return times instanceof FreeTimeIterator
+        ? stream.onClose(((FreeTimeIterator) times)::close)
+        : stream;
+  }
+
+  /**
+   * Returns the answer to {@code request} if it is an edge case that no engine needs to look at, or
+   * null otherwise.
+   */
+  private static Collection<TimeRange> queryEdgeCase(MeetingRequest request) {
+    // Consider the edge cases where there is no attendes or the meeting duration is more than 24 hours
+
+    // Options where there are no Attendees and no optional attendees as well
+    if (request.getAttendees().isEmpty() && request.getOptionalAttendees().isEmpty()) {
+      return Arrays.asList(TimeRange.WHOLE_DAY);
     }
-    // Every time an element is removed from a list, the indices are reduced. Keep track of deleted elements and subtract from indicesToRemove
-    // Did not implement it in the above iterations because, there is no better way I could keep track of i and j at the same with one single variable
-    int trackDeleted = 0;
-    for (int index: indicesToRemove) {
-      attendeesTimeranges.remove(index - trackDeleted);
-      trackDeleted++;
+
+    // No options when meeting request is too long (more than a day)
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
     }
+    return null;
   }
 }
@@ -0,0 +1,145 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the gaps between busy times one at a time, in ascending order. Nothing is looked at before
+ * it is asked for, so a caller that only wants the first few free times skips the rest of the day.
+ *
+ * <p>If the busy times leave no gap that is long enough, the iterator continues with the gaps of
+ * the fallback busy times, if there are any. That is how the optional attendees are dropped.
+ *
+ * <p>Sorting, merging and looking for gaps are measured by {@link SchedulerMetrics}. The time spent
+ * looking for gaps and the number of gaps are recorded once the iterator runs out, or when it is
+ * closed, whichever comes first.
+ */
+final class FreeTimeIterator implements Iterator<TimeRange> {
+  private final long duration;
+  private TimeRangeArray busyTimes;
+  private TimeRangeArray fallbackBusyTimes;
+
+  // The next busy time to look at; {@code busyTimes.size()} stands for the end of the day.
+  private int index;
+  // Everything before {@code freeFrom} is covered by the busy times looked at so far.
+  private int freeFrom = TimeRange.START_OF_DAY;
+  private boolean foundAny;
+  private TimeRange next;
+
+  private final SchedulerMetrics metrics = SchedulerMetrics.shared();
+  private long scanNanos;
+  private int slots;
+  private boolean finished;
+
+  /**
+   * Creates an iterator over the gaps of at least {@code duration} minutes between
+   * {@code busyTimes}, which are merged in place.
+   *
+   * @param fallbackBusyTimes The busy times to use if there is no gap between {@code busyTimes}, or
+   *     null to use none. They are only merged if they are needed.
+   */
+  FreeTimeIterator(TimeRangeArray busyTimes, TimeRangeArray fallbackBusyTimes, long duration) {
+    this.busyTimes = busyTimes;
+    this.fallbackBusyTimes = fallbackBusyTimes;
+    this.duration = duration;
+    merge(busyTimes);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = findNext();
+    }
+    return next != null;
+  }
+
+  @Override
+  public TimeRange next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    TimeRange result = next;
+    next = null;
+    return result;
+  }
+
+  /** Returns the next gap that is long enough, or null if there is none. */
+  private TimeRange findNext() {
+    while (true) {
+      long start = metrics.startTimer();
+      TimeRange gap = nextGap();
+      scanNanos += metrics.elapsedNanos(start);
+      if (gap != null) {
+        foundAny = true;
+        slots++;
+        return gap;
+      }
+
+      if (foundAny || fallbackBusyTimes == null) {
+        close();
+        return null;
+      }
+      busyTimes = fallbackBusyTimes;
+      fallbackBusyTimes = null;
+      merge(busyTimes);
+      index = 0;
+      freeFrom = TimeRange.START_OF_DAY;
+    }
+  }
+
+  /**
+   * Records the time spent looking for gaps and the number of gaps found so far, if that was not
+   * done yet. A caller that stops before the iterator runs out, like a limited stream, calls this
+   * so that the search still shows up in the metrics.
+   */
+  void close() {
+    if (!finished) {
+      finished = true;
+      metrics.recordNanos(SchedulerMetrics.Phase.SCAN, scanNanos);
+      metrics.count(SchedulerMetrics.Counter.SLOTS_PRODUCED, slots);
+    }
+  }
+
+  /** Returns the next gap between the current busy times that is long enough, or null. */
+  private TimeRange nextGap() {
+    while (index <= busyTimes.size()) {
+      int start = freeFrom;
+      int end;
+      if (index < busyTimes.size()) {
+        end = busyTimes.start(index);
+        freeFrom = busyTimes.end(index);
+      } else {
+        end = TimeRange.WHOLE_DAY.end();
+      }
+      index++;
+      if (end > start && end - start >= duration) {
+        return TimeRange.fromStartEnd(start, end, false);
+      }
+    }
+    return null;
+  }
+
+  private void merge(TimeRangeArray times) {
+    metrics.count(SchedulerMetrics.Counter.INTERVALS_MERGED, times.size());
+    long start = metrics.startTimer();
+    times.sortByStart();
+    metrics.stopTimer(SchedulerMetrics.Phase.SORT, start);
+    start = metrics.startTimer();
+    times.mergeSorted();
+    metrics.stopTimer(SchedulerMetrics.Phase.MERGE, start);
+  }
+}
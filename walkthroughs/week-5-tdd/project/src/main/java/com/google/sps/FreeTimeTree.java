@@ -0,0 +1,178 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Segment tree over the minutes of a day that answers "where is the earliest free run of N
+ * minutes" in O(log 1440) time. Every node knows the free minutes at its start (prefix), at its
+ * end (suffix) and the longest free run inside it.
+ *
+ * <p>Busy times are counted rather than flagged, so a busy time can be removed again while other
+ * busy times still cover the same minutes. A node that is completely covered by a busy time only
+ * counts it at that node, which keeps both adding and removing at O(log 1440).
+ */
+public final class FreeTimeTree {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  // Per node: the number of busy times that cover the whole node, and the free run lengths.
+  private final int[] cover = new int[4 * MINUTES];
+  private final int[] prefix = new int[4 * MINUTES];
+  private final int[] suffix = new int[4 * MINUTES];
+  private final int[] longest = new int[4 * MINUTES];
+
+  // The number of events without a duration that start at each minute. A free run cannot
+  // continue past such a minute, like in the engines of {@link FindMeetingQuery}.
+  private final int[] breaks = new int[MINUTES];
+
+  /**
+   * Creates a tree for a day without any busy times.
+   */
+  public FreeTimeTree() {
+    build(1, 0, MINUTES);
+  }
+
+  /**
+   * Marks the minutes of {@code range} as busy. The parts of the range that fall outside of the day
+   * are ignored.
+   */
+  public void addBusy(TimeRange range) {
+    update(range, 1);
+  }
+
+  /**
+   * Undoes one earlier call to {@link #addBusy} with the same {@code range}. Minutes that are still
+   * covered by other busy times stay busy.
+   */
+  public void removeBusy(TimeRange range) {
+    update(range, -1);
+  }
+
+  /**
+   * Returns the earliest start of {@code duration} free minutes, or -1 if there is no such run. A
+   * meeting without a duration still needs a free minute, like the free times that
+   * {@link FindMeetingQuery#query} returns are never empty.
+   */
+  public int earliestFit(long duration) {
+    long length = Math.max(duration, 1);
+    if (length > longest[1]) {
+      return -1;
+    }
+    return find(1, 0, MINUTES, length);
+  }
+
+  /**
+   * Returns the length of the longest free run of the day.
+   */
+  public int longestFreeTime() {
+    return longest[1];
+  }
+
+  private void update(TimeRange range, int delta) {
+    if (range.duration() > 0) {
+      int from = Math.max(range.start(), 0);
+      int to = Math.min(range.end(), MINUTES);
+      if (from < to) {
+        updateCover(1, 0, MINUTES, from, to, delta);
+      }
+    } else if (range.start() > 0 && range.start() < MINUTES) {
+      updateBreak(1, 0, MINUTES, range.start(), delta);
+    }
+  }
+
+  private void build(int node, int low, int high) {
+    if (high - low > 1) {
+      int middle = (low + high) >>> 1;
+      build(2 * node, low, middle);
+      build(2 * node + 1, middle, high);
+    }
+    recompute(node, low, high);
+  }
+
+  private void updateCover(int node, int low, int high, int from, int to, int delta) {
+    if (to <= low || high <= from) {
+      return;
+    }
+    if (from <= low && high <= to) {
+      cover[node] += delta;
+    } else {
+      int middle = (low + high) >>> 1;
+      updateCover(2 * node, low, middle, from, to, delta);
+      updateCover(2 * node + 1, middle, high, from, to, delta);
+    }
+    recompute(node, low, high);
+  }
+
+  /**
+   * Changes the break count at {@code minute}. Every minute inside the day is the middle of exactly
+   * one node, and that is the only node whose free runs can cross it.
+   */
+  private void updateBreak(int node, int low, int high, int minute, int delta) {
+    int middle = (low + high) >>> 1;
+    if (minute == middle) {
+      breaks[minute] += delta;
+    } else if (minute < middle) {
+      updateBreak(2 * node, low, middle, minute, delta);
+    } else {
+      updateBreak(2 * node + 1, middle, high, minute, delta);
+    }
+    recompute(node, low, high);
+  }
+
+  /** Recomputes the free runs of {@code node} from its cover count and its children. */
+  private void recompute(int node, int low, int high) {
+    if (cover[node] > 0) {
+      prefix[node] = 0;
+      suffix[node] = 0;
+      longest[node] = 0;
+      return;
+    }
+    if (high - low == 1) {
+      prefix[node] = 1;
+      suffix[node] = 1;
+      longest[node] = 1;
+      return;
+    }
+
+    int left = 2 * node;
+    int right = 2 * node + 1;
+    int middle = (low + high) >>> 1;
+    boolean open = breaks[middle] == 0;
+    prefix[node] = (open && prefix[left] == middle - low)
+        ? prefix[left] + prefix[right] : prefix[left];
+    suffix[node] = (open && suffix[right] == high - middle)
+        ? suffix[right] + suffix[left] : suffix[right];
+    int across = open ? suffix[left] + prefix[right] : 0;
+    longest[node] = Math.max(Math.max(longest[left], longest[right]), across);
+  }
+
+  /** Returns the earliest start of {@code duration} free minutes inside {@code node}. */
+  private int find(int node, int low, int high, long duration) {
+    if (high - low == 1) {
+      return low;
+    }
+    int left = 2 * node;
+    int right = 2 * node + 1;
+    int middle = (low + high) >>> 1;
+    // A run inside the left child starts before a run that crosses the middle, which starts before
+    // a run inside the right child.
+    if (longest[left] >= duration) {
+      return find(left, low, middle, duration);
+    }
+    if (breaks[middle] == 0 && suffix[left] + prefix[right] >= duration) {
+      return middle - suffix[left];
+    }
+    return find(right, middle, high, duration);
+  }
+}
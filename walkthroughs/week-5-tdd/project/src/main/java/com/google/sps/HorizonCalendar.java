@@ -0,0 +1,227 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event store for scheduling across many days. The busy times of every attendee are kept in
+ * fixed-size time buckets (one day by default), so a query only looks at the buckets that overlap
+ * its search window instead of at every event that was ever loaded.
+ *
+ * <p>A {@link RecurringEvent} is stored as its rule. A query only works out the occurrences that
+ * overlap its window, so a series costs the same whether it runs for a week or for years.
+ */
+public final class HorizonCalendar {
+  private final long bucketMinutes;
+
+  // For every attendee, the busy times that overlap each bucket. A busy time that spans several
+  // buckets is stored in each of them. Guarded by {@code this}.
+  private final Map<String, Map<Long, List<HorizonRange>>> bucketsByAttendee = new HashMap<>();
+
+  // For every attendee, the recurring events they attend. Guarded by {@code this}.
+  private final Map<String, List<RecurringEvent>> recurringByAttendee = new HashMap<>();
+
+  /**
+   * Creates an empty calendar with buckets of one day.
+   */
+  public HorizonCalendar() {
+    this(HorizonRange.MINUTES_PER_DAY);
+  }
+
+  /**
+   * Creates an empty calendar with buckets of {@code bucketMinutes} minutes.
+   */
+  public HorizonCalendar(int bucketMinutes) {
+    if (bucketMinutes <= 0) {
+      throw new IllegalArgumentException("bucketMinutes must be positive");
+    }
+
+    this.bucketMinutes = bucketMinutes;
+  }
+
+  /**
+   * Adds {@code event} on the day {@code day}.
+   */
+  public void addEvent(int day, Event event) {
+    addEvent(HorizonRange.onDay(day, event.getWhen()), event.getAttendees());
+  }
+
+  /**
+   * Adds an event that takes place at {@code when} and keeps {@code attendees} busy.
+   */
+  public synchronized void addEvent(HorizonRange when, Collection<String> attendees) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    long firstBucket = bucketOf(when.start());
+    long lastBucket = bucketOf(Math.max(when.end() - 1, when.start()));
+    for (String attendee : attendees) {
+      Map<Long, List<HorizonRange>> buckets = bucketsByAttendee.get(attendee);
+      if (buckets == null) {
+        buckets = new HashMap<>();
+        bucketsByAttendee.put(attendee, buckets);
+      }
+      for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+        List<HorizonRange> busyTimes = buckets.get(bucket);
+        if (busyTimes == null) {
+          busyTimes = new ArrayList<>();
+          buckets.put(bucket, busyTimes);
+        }
+        busyTimes.add(when);
+      }
+    }
+  }
+
+  /**
+   * Adds every occurrence of {@code event}.
+   */
+  public synchronized void addRecurringEvent(RecurringEvent event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    for (String attendee : event.getAttendees()) {
+      List<RecurringEvent> events = recurringByAttendee.get(attendee);
+      if (events == null) {
+        events = new ArrayList<>();
+        recurringByAttendee.put(attendee, events);
+      }
+      events.add(event);
+    }
+  }
+
+  /**
+   * Returns the times inside {@code window}, in ascending order, when the meeting described by
+   * {@code request} can be scheduled. The rules for optional attendees are the same as for
+   * {@link FindMeetingQuery#query}.
+   *
+   * @param request The meeting that is to be scheduled. Must be non-null.
+   * @param window The time to search in. Must be non-null.
+   */
+  public List<HorizonRange> query(MeetingRequest request, HorizonRange window) {
+    if (request.getDuration() > window.duration()) {
+      return Collections.emptyList();
+    }
+
+    List<HorizonRange> attendeesBusyTimes;
+    List<HorizonRange> allAttendeesBusyTimes;
+    // Read both lists from the same calendar, but work out the free times without the lock.
+    synchronized (this) {
+      attendeesBusyTimes = busyTimes(request.getAttendees(), window);
+      allAttendeesBusyTimes = new ArrayList<>(attendeesBusyTimes);
+      allAttendeesBusyTimes.addAll(busyTimes(request.getOptionalAttendees(), window));
+    }
+
+    List<HorizonRange> possibleTimes =
+        freeTimes(allAttendeesBusyTimes, window, request.getDuration());
+    if (possibleTimes.isEmpty() && !request.getAttendees().isEmpty()) {
+      possibleTimes = freeTimes(attendeesBusyTimes, window, request.getDuration());
+    }
+    return possibleTimes;
+  }
+
+  /**
+   * Returns the busy times of {@code attendees} that overlap {@code window}, cut to the window.
+   * Busy times without a duration are returned if they fall inside the window, because they still
+   * end a free time.
+   */
+  synchronized List<HorizonRange> busyTimes(Collection<String> attendees, HorizonRange window) {
+    List<HorizonRange> busyTimes = new ArrayList<>();
+    long firstBucket = bucketOf(window.start());
+    long lastBucket = bucketOf(Math.max(window.end() - 1, window.start()));
+    for (String attendee : attendees) {
+      addOccurrences(recurringByAttendee.get(attendee), window, busyTimes);
+      Map<Long, List<HorizonRange>> buckets = bucketsByAttendee.get(attendee);
+      if (buckets == null) {
+        continue;
+      }
+      for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+        List<HorizonRange> bucketBusyTimes = buckets.get(bucket);
+        if (bucketBusyTimes == null) {
+          continue;
+        }
+        for (HorizonRange busyTime : bucketBusyTimes) {
+          if (busyTime.overlaps(window)) {
+            busyTimes.add(HorizonRange.fromStartEnd(Math.max(busyTime.start(), window.start()),
+                Math.min(busyTime.end(), window.end())));
+          }
+        }
+      }
+    }
+    return busyTimes;
+  }
+
+  /**
+   * Adds the occurrences of {@code events} that overlap {@code window} to {@code busyTimes}, cut to
+   * the window.
+   */
+  private static void addOccurrences(
+      List<RecurringEvent> events, HorizonRange window, List<HorizonRange> busyTimes) {
+    if (events == null) {
+      return;
+    }
+    for (RecurringEvent event : events) {
+      Iterator<HorizonRange> occurrences = event.occurrences(window);
+      while (occurrences.hasNext()) {
+        HorizonRange occurrence = occurrences.next();
+        busyTimes.add(HorizonRange.fromStartEnd(Math.max(occurrence.start(), window.start()),
+            Math.min(occurrence.end(), window.end())));
+      }
+    }
+  }
+
+  /**
+   * Returns the gaps of at least {@code duration} minutes between {@code busyTimes} inside
+   * {@code window}, in ascending order. {@code busyTimes} is sorted in place.
+   */
+  private static List<HorizonRange> freeTimes(
+      List<HorizonRange> busyTimes, HorizonRange window, long duration) {
+    Collections.sort(busyTimes, HorizonRange.ORDER_BY_START);
+
+    List<HorizonRange> freeTimes = new ArrayList<>();
+    long freeFrom = window.start();
+    for (HorizonRange busyTime : busyTimes) {
+      if (busyTime.start() > freeFrom) {
+        addIfLongEnough(freeFrom, busyTime.start(), duration, freeTimes);
+      }
+      freeFrom = Math.max(freeFrom, busyTime.end());
+    }
+    addIfLongEnough(freeFrom, window.end(), duration, freeTimes);
+    return freeTimes;
+  }
+
+  private static void addIfLongEnough(
+      long start, long end, long duration, List<HorizonRange> freeTimes) {
+    if (end > start && end - start >= duration) {
+      freeTimes.add(HorizonRange.fromStartEnd(start, end));
+    }
+  }
+
+  private long bucketOf(long minute) {
+    return Math.floorDiv(minute, bucketMinutes);
+  }
+}
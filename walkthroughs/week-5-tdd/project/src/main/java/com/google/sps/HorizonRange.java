@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * A span of time that is not limited to a single day, like {@link TimeRange} is. Times are counted
+ * in minutes from an epoch that the caller picks, for example the first day of a planning window.
+ * Day {@code n} starts at minute {@code n * MINUTES_PER_DAY}.
+ */
+public final class HorizonRange {
+  public static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  /**
+   * A comparator for sorting ranges by their start time in ascending order.
+   */
+  public static final Comparator<HorizonRange> ORDER_BY_START = new Comparator<HorizonRange>() {
+    @Override
+    public int compare(HorizonRange a, HorizonRange b) {
+      return Long.compare(a.start, b.start);
+    }
+  };
+
+  private final long start;
+  private final long duration;
+
+  private HorizonRange(long start, long duration) {
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the start of the range in minutes from the epoch.
+   */
+  public long start() {
+    return start;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public long duration() {
+    return duration;
+  }
+
+  /**
+   * Returns the end of the range. This ending value is the closing exclusive bound.
+   */
+  public long end() {
+    return start + duration;
+  }
+
+  /**
+   * Checks if two ranges overlap. This means that at least some part of one range falls within the
+   * bounds of another range.
+   */
+  public boolean overlaps(HorizonRange other) {
+    return this.contains(other.start) || other.contains(this.start);
+  }
+
+  /**
+   * Checks if {@code point} falls within this range. Like {@link TimeRange#contains(int)}, the end
+   * is not part of the range and a range without duration contains nothing.
+   */
+  public boolean contains(long point) {
+    return duration > 0 && point >= start && point < start + duration;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof HorizonRange && equals(this, (HorizonRange) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(start) + Long.hashCode(duration);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, start + duration);
+  }
+
+  private static boolean equals(HorizonRange a, HorizonRange b) {
+    return a.start == b.start && a.duration == b.duration;
+  }
+
+  /**
+   * Creates a {@code HorizonRange} from {@code start} to {@code end}, not including {@code end}.
+   */
+  public static HorizonRange fromStartEnd(long start, long end) {
+    return new HorizonRange(start, end - start);
+  }
+
+  /**
+   * Create a {@code HorizonRange} starting at {@code start} with a duration equal to
+   * {@code duration}.
+   */
+  public static HorizonRange fromStartDuration(long start, long duration) {
+    return new HorizonRange(start, duration);
+  }
+
+  /**
+   * Creates the {@code HorizonRange} of {@code range} on the day {@code day}.
+   */
+  public static HorizonRange onDay(int day, TimeRange range) {
+    return new HorizonRange((long) day * MINUTES_PER_DAY + range.start(), range.duration());
+  }
+
+  /**
+   * Creates the {@code HorizonRange} that covers the days {@code firstDay} up to and including
+   * {@code lastDay}.
+   */
+  public static HorizonRange days(int firstDay, int lastDay) {
+    return fromStartEnd((long) firstDay * MINUTES_PER_DAY, (long) (lastDay + 1) * MINUTES_PER_DAY);
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts values in buckets whose bounds grow by powers of two, so that a few dozen counters cover
+ * everything from 1 to {@code Long.MAX_VALUE}. Recording a value never takes a lock, and
+ * percentiles are reported as the upper bound of their bucket, which is at most twice too high.
+ */
+final class LogHistogram {
+  // Bucket 0 holds the values up to 0, and bucket b > 0 the values from 2^(b-1) to 2^b - 1.
+  private static final int BUCKETS = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Adds {@code value} to the histogram.
+   */
+  void record(long value) {
+    buckets.incrementAndGet(bucket(value));
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Returns the number of recorded values.
+   */
+  long count() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the count, sum, mean, maximum and the 50th, 90th and 99th percentiles of the recorded
+   * values. Values recorded while this runs may be counted in some of them and not in others.
+   */
+  Map<String, Number> snapshot() {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      count += counts[i];
+    }
+    long total = sum.sum();
+    long maximum = max.get();
+
+    Map<String, Number> snapshot = new LinkedHashMap<>();
+    snapshot.put("count", count);
+    snapshot.put("sum", total);
+    snapshot.put("mean", count == 0 ? 0 : (double) total / count);
+    snapshot.put("max", maximum);
+    snapshot.put("p50", percentile(counts, count, maximum, 0.5));
+    snapshot.put("p90", percentile(counts, count, maximum, 0.9));
+    snapshot.put("p99", percentile(counts, count, maximum, 0.99));
+    return snapshot;
+  }
+
+  /**
+   * Forgets all recorded values.
+   */
+  void clear() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    sum.reset();
+    max.reset();
+  }
+
+  private static long percentile(long[] counts, long count, long maximum, double fraction) {
+    long rank = (long) Math.ceil(fraction * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0) {
+        return Math.min(upperBound(i), maximum);
+      }
+    }
+    return 0;
+  }
+
+  private static int bucket(long value) {
+    return value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  private static long upperBound(int bucket) {
+    return bucket == 0 ? 0 : bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the times that work for all mandatory attendees and for as many optional attendees as
+ * possible.
+ *
+ * <p>Instead of trying subsets of optional attendees, this counts for every possible start minute
+ * how many optional attendees are busy at some point during a meeting that starts then. Each
+ * attendee's busy times are turned into the ranges of start minutes they block, and those ranges
+ * are added to a difference array. One prefix sum then gives the count for every start, so the
+ * whole query takes O(E log E + 1440) time for E events, however many optional attendees there
+ * are.
+ */
+public final class MaxOptionalAttendeesQuery {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  /**
+   * Returns the times that work for all mandatory attendees and for the largest possible number of
+   * optional attendees, in ascending order. A meeting can start at any minute of a returned slot as
+   * long as it ends inside the slot. Every slot reports how many optional attendees can attend.
+   *
+   * @param events All the known events. Must be non-null.
+   * @param request The meeting that is to be scheduled. Must be non-null.
+   */
+  public List<MeetingSlot> query(Collection<Event> events, MeetingRequest request) {
+    if (request.getDuration() > MINUTES) {
+      return Collections.emptyList();
+    }
+    // A meeting is treated as at least one minute long.
+    int duration = (int) Math.max(request.getDuration(), 1);
+    // Starts after this minute would end after the end of the day.
+    int lastStart = MINUTES - duration;
+
+    Set<String> attendees = new HashSet<>(request.getAttendees());
+    Set<String> optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+    // Someone who is also a mandatory attendee can always attend, so they are not counted.
+    optionalAttendees.removeAll(attendees);
+    List<TimeRange> attendeesBusyTimes = new ArrayList<>();
+    Map<String, List<TimeRange>> optionalBusyTimes = new HashMap<>();
+    for (Event event : events) {
+      boolean attendeeIsBusy = false;
+      for (String attendee : event.getAttendees()) {
+        if (attendees.contains(attendee)) {
+          attendeeIsBusy = true;
+        } else if (optionalAttendees.contains(attendee)) {
+          List<TimeRange> busyTimes = optionalBusyTimes.get(attendee);
+          if (busyTimes == null) {
+            busyTimes = new ArrayList<>();
+            optionalBusyTimes.put(attendee, busyTimes);
+          }
+          busyTimes.add(event.getWhen());
+        }
+      }
+      if (attendeeIsBusy) {
+        attendeesBusyTimes.add(event.getWhen());
+      }
+    }
+
+    // blocked[start] > 0 if a mandatory attendee cannot attend a meeting at {@code start}, and
+    // missing[start] is the number of optional attendees who cannot.
+    int[] blocked = new int[MINUTES + 1];
+    addBlockedStarts(attendeesBusyTimes, duration, lastStart, blocked);
+    int[] missing = new int[MINUTES + 1];
+    for (List<TimeRange> busyTimes : optionalBusyTimes.values()) {
+      addBlockedStarts(busyTimes, duration, lastStart, missing);
+    }
+    prefixSum(blocked);
+    prefixSum(missing);
+
+    int fewestMissing = Integer.MAX_VALUE;
+    for (int start = 0; start <= lastStart; start++) {
+      if (blocked[start] == 0) {
+        fewestMissing = Math.min(fewestMissing, missing[start]);
+      }
+    }
+    int available = optionalAttendees.size() - fewestMissing;
+    // Like {@link FindMeetingQuery#query}, a meeting without mandatory attendees needs at least one
+    // attendee.
+    if (fewestMissing == Integer.MAX_VALUE || (attendees.isEmpty() && available == 0
+        && !optionalAttendees.isEmpty())) {
+      return Collections.emptyList();
+    }
+
+    // Every run of best starts becomes one slot, from its first start to the end of a meeting that
+    // begins at its last start.
+    List<MeetingSlot> slots = new ArrayList<>();
+    int start = 0;
+    while (start <= lastStart) {
+      if (blocked[start] != 0 || missing[start] != fewestMissing) {
+        start++;
+        continue;
+      }
+      int end = start;
+      while (end + 1 <= lastStart && blocked[end + 1] == 0 && missing[end + 1] == fewestMissing) {
+        end++;
+      }
+      slots.add(new MeetingSlot(TimeRange.fromStartEnd(start, end + duration, false), available));
+      start = end + 1;
+    }
+    return slots;
+  }
+
+  /**
+   * Adds one to {@code difference} for every start of a meeting of {@code duration} minutes that
+   * would overlap one of {@code busyTimes}. Starts that several busy times block are only counted
+   * once. Events without a duration block the meetings that would span them.
+   */
+  private static void addBlockedStarts(
+      List<TimeRange> busyTimes, int duration, int lastStart, int[] difference) {
+    Collections.sort(busyTimes, TimeRange.ORDER_BY_START);
+    // The range of blocked starts that is still being extended, from {@code from} to {@code to}
+    // inclusive. Busy times come in order of their start, so the ranges do too.
+    int from = -1;
+    int to = -2;
+    for (TimeRange busyTime : busyTimes) {
+      // A meeting from {@code start} overlaps the busy time if it starts before the busy time ends
+      // and ends after the busy time starts.
+      int blockedFrom = Math.max(busyTime.start() - duration + 1, 0);
+      int blockedTo = Math.min(busyTime.end() - 1, lastStart);
+      if (blockedFrom > blockedTo) {
+        continue;
+      }
+      if (blockedFrom <= to + 1) {
+        to = Math.max(to, blockedTo);
+      } else {
+        addRange(from, to, difference);
+        from = blockedFrom;
+        to = blockedTo;
+      }
+    }
+    addRange(from, to, difference);
+  }
+
+  private static void addRange(int from, int to, int[] difference) {
+    if (from <= to) {
+      difference[from]++;
+      difference[to + 1]--;
+    }
+  }
+
+  private static void prefixSum(int[] values) {
+    for (int i = 1; i < values.length; i++) {
+      values[i] += values[i - 1];
+    }
+  }
+}
@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The outcome of {@link MeetingPlanner#plan}: the time that every meeting got, the meetings that
+ * could not be placed, and how long planning took. Plans are considered read-only.
+ */
+public final class MeetingPlan {
+  private final TimeRange[] placements;
+  private final List<Event> events;
+  private final List<Integer> unplaced;
+  private final long planningNanos;
+
+  MeetingPlan(TimeRange[] placements, List<Event> events, List<Integer> unplaced,
+      long planningNanos) {
+    this.placements = placements;
+    this.events = Collections.unmodifiableList(events);
+    this.unplaced = Collections.unmodifiableList(unplaced);
+    this.planningNanos = planningNanos;
+  }
+
+  /**
+   * Returns the time of the meeting with the index {@code index} in the planned requests, or an
+   * empty optional if it could not be placed.
+   */
+  public Optional<TimeRange> placement(int index) {
+    return Optional.ofNullable(placements[index]);
+  }
+
+  /**
+   * Returns an event for every placed meeting, in the order they were placed. Every event has the
+   * mandatory attendees of its request and the optional attendees who are free at its time.
+   */
+  public List<Event> events() {
+    return events;
+  }
+
+  /**
+   * Returns the indices of the requests that could not be placed, in ascending order.
+   */
+  public List<Integer> unplaced() {
+    return unplaced;
+  }
+
+  /**
+   * Returns how many nanoseconds planning took.
+   */
+  public long planningNanos() {
+    return planningNanos;
+  }
+}
@@ -0,0 +1,210 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Places many meetings at once, so that none of them conflicts with an existing event or with
+ * another planned meeting.
+ *
+ * <p>The meeting with the fewest possible start minutes left is placed first, since it is the
+ * easiest to lose; ties go to the meeting with more people, then to the longer one, then to the one
+ * that was asked for first. A meeting goes into the shortest free time that fits it, at its start,
+ * so that long free times stay free for long meetings. After every placement only the meetings that
+ * share a person with it are looked at again, using the per-attendee busy times that a
+ * {@link CalendarIndex} keeps up to date.
+ *
+ * <p>Like {@link FindMeetingQuery#query}, a meeting only keeps its optional attendees if there is
+ * a time that works for all of them.
+ */
+public final class MeetingPlanner {
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  /**
+   * Returns a time for as many of {@code requests} as possible on the day of {@code events}.
+   *
+   * @param events The events that are already scheduled. Must be non-null.
+   * @param requests The meetings to place. Must be non-null.
+   */
+  public MeetingPlan plan(Collection<Event> events, List<MeetingRequest> requests) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    if (requests == null) {
+      throw new IllegalArgumentException("requests cannot be null");
+    }
+
+    long startNanos = System.nanoTime();
+    CalendarIndex calendar = new CalendarIndex(events);
+    int count = requests.size();
+
+    // For every person, the requests they are invited to.
+    Map<String, List<Integer>> requestsByPerson = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      for (String person : people(requests.get(i))) {
+        List<Integer> indices = requestsByPerson.get(person);
+        if (indices == null) {
+          indices = new ArrayList<>();
+          requestsByPerson.put(person, indices);
+        }
+        indices.add(i);
+      }
+    }
+
+    // Holds one candidate per update of a request; candidates of placed requests and outdated
+    // candidates are skipped when they come up.
+    PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+    Candidate[] latest = new Candidate[count];
+    for (int i = 0; i < count; i++) {
+      latest[i] = candidate(calendar, requests, i);
+      candidates.add(latest[i]);
+    }
+
+    TimeRange[] placements = new TimeRange[count];
+    boolean[] planned = new boolean[count];
+    List<Event> placed = new ArrayList<>();
+    List<Integer> unplaced = new ArrayList<>();
+    while (!candidates.isEmpty()) {
+      Candidate candidate = candidates.poll();
+      int index = candidate.index;
+      if (planned[index] || candidate != latest[index]) {
+        continue;
+      }
+      planned[index] = true;
+      if (candidate.bestFit == null) {
+        unplaced.add(index);
+        continue;
+      }
+
+      MeetingRequest request = requests.get(index);
+      TimeRange when = TimeRange.fromStartDuration(
+          candidate.bestFit.start(), (int) request.getDuration());
+      Event event = new Event("Meeting " + index, when, attendeesFreeAt(calendar, request, when));
+      calendar.addEvent(event);
+      placements[index] = when;
+      placed.add(event);
+
+      // A request that shares several people with the meeting is still looked at only once.
+      BitSet affected = new BitSet(count);
+      for (String person : event.getAttendees()) {
+        for (int other : requestsByPerson.get(person)) {
+          if (!planned[other]) {
+            affected.set(other);
+          }
+        }
+      }
+      for (int other = affected.nextSetBit(0); other >= 0; other = affected.nextSetBit(other + 1)) {
+        latest[other] = candidate(calendar, requests, other);
+        candidates.add(latest[other]);
+      }
+    }
+
+    Collections.sort(unplaced);
+    return new MeetingPlan(placements, placed, unplaced, System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Returns the candidate for the request with the index {@code index} on the calendar as it is
+   * now.
+   */
+  private Candidate candidate(CalendarIndex calendar, List<MeetingRequest> requests, int index) {
+    MeetingRequest request = requests.get(index);
+    // A meeting takes at least a minute, so that every start is counted.
+    long duration = Math.max(request.getDuration(), 1);
+    long starts = 0;
+    TimeRange bestFit = null;
+    for (TimeRange freeTime : findMeetingQuery.query(calendar, request)) {
+      if (freeTime.duration() < duration) {
+        continue;
+      }
+      starts += freeTime.duration() - duration + 1;
+      if (bestFit == null || freeTime.duration() < bestFit.duration()) {
+        bestFit = freeTime;
+      }
+    }
+    return new Candidate(index, starts, people(request).size(), request.getDuration(), bestFit);
+  }
+
+  /**
+   * Returns the mandatory attendees of {@code request} and its optional attendees who have no
+   * event during {@code when}.
+   */
+  private static List<String> attendeesFreeAt(
+      CalendarIndex calendar, MeetingRequest request, TimeRange when) {
+    List<String> attendees = new ArrayList<>(request.getAttendees());
+    for (String person : request.getOptionalAttendees()) {
+      boolean free = true;
+      for (TimeRange busyTime : calendar.busyTimes(person)) {
+        if (busyTime.overlaps(when)) {
+          free = false;
+          break;
+        }
+      }
+      if (free) {
+        attendees.add(person);
+      }
+    }
+    return attendees;
+  }
+
+  private static Set<String> people(MeetingRequest request) {
+    Set<String> people = new LinkedHashSet<>(request.getAttendees());
+    people.addAll(request.getOptionalAttendees());
+    return people;
+  }
+
+  /** A request together with how constrained it is at one point of planning. */
+  private static final class Candidate implements Comparable<Candidate> {
+    final int index;
+    final long starts;
+    final int people;
+    final long duration;
+    // The shortest free time that fits the meeting, or null if there is none.
+    final TimeRange bestFit;
+
+    Candidate(int index, long starts, int people, long duration, TimeRange bestFit) {
+      this.index = index;
+      this.starts = starts;
+      this.people = people;
+      this.duration = duration;
+      this.bestFit = bestFit;
+    }
+
+    @Override
+    public int compareTo(Candidate other) {
+      if (starts != other.starts) {
+        return Long.compare(starts, other.starts);
+      }
+      if (people != other.people) {
+        return Integer.compare(other.people, people);
+      }
+      if (duration != other.duration) {
+        return Long.compare(other.duration, duration);
+      }
+      return Integer.compare(index, other.index);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+
+/**
+ * A strategy for finding the times when a meeting can take place. {@link FindMeetingQuery} takes
+ * care of the edge cases (no attendees, no events, requests longer than a day) and hands every
+ * other request to an engine.
+ */
+public interface MeetingQueryEngine {
+  /**
+   * Returns the times, in ascending order, when the meeting described by {@code request} can be
+   * scheduled. If there are times that work for both mandatory and optional attendees, only those
+   * are returned. Otherwise the times that work for the mandatory attendees are returned, or no
+   * times at all if the request has no mandatory attendees.
+   *
+   * @param events All the known events. Must be non-null.
+   * @param request The meeting that is to be scheduled. Must be non-null.
+   */
+  Collection<TimeRange> query(Collection<Event> events, MeetingRequest request);
+}
@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A time when a meeting can take place, together with the number of people who can attend it.
+ * Which people are counted depends on where the slot comes from:
+ * {@link MaxOptionalAttendeesQuery} only counts the optional attendees, since every slot it returns
+ * already works for all mandatory attendees, while {@link AvailabilityHeatmap} counts everybody in
+ * the group, mandatory or not. Slots are considered read-only.
+ */
+public final class MeetingSlot {
+  private final TimeRange when;
+  private final int availableAttendees;
+
+  /**
+   * Creates a new slot.
+   *
+   * @param when The time of the slot. Must be non-null.
+   * @param availableAttendees The number of the counted people who can attend a meeting in this
+   *     slot.
+   */
+  public MeetingSlot(TimeRange when, int availableAttendees) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    this.when = when;
+    this.availableAttendees = availableAttendees;
+  }
+
+  /**
+   * Returns the {@code TimeRange} of this slot.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the number of the counted people who can attend a meeting in this slot: the optional
+   * attendees for {@link MaxOptionalAttendeesQuery}, and everybody for
+   * {@link AvailabilityHeatmap}.
+   */
+  public int getAvailableAttendees() {
+    return availableAttendees;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof MeetingSlot && equals(this, (MeetingSlot) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() * 31 + availableAttendees;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Slot: %s, %d available", when, availableAttendees);
+  }
+
+  private static boolean equals(MeetingSlot a, MeetingSlot b) {
+    return a.when.equals(b.when) && a.availableAttendees == b.availableAttendees;
+  }
+}
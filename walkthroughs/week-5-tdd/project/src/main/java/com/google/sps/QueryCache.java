@@ -0,0 +1,163 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the answers to recent requests against a {@link CalendarIndex}. Requests with the same
+ * attendees and duration share an entry, whatever order the attendees were given in. An entry stays
+ * valid until an event of one of its attendees is added or removed, so changes to other people's
+ * calendars do not throw it away. When the cache is full, the least recently used entry goes.
+ */
+public final class QueryCache {
+  private final CalendarIndex calendar;
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+  private final int capacity;
+
+  // Guarded by itself.
+  private final Map<Key, CachedAnswer> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates an empty cache for {@code calendar} with room for {@code capacity} answers.
+   */
+  public QueryCache(CalendarIndex calendar, int capacity) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.calendar = calendar;
+    this.capacity = capacity;
+    this.entries = new LinkedHashMap<Key, CachedAnswer>(16, 0.75f, /* accessOrder= */ true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CachedAnswer> eldest) {
+        return size() > QueryCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the same times as {@link FindMeetingQuery#query(BusyTimeSource, MeetingRequest)} on the
+   * calendar, from the cache if possible. The returned collection is read-only.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    Key key = new Key(request);
+    // Read the version before the busy times, so that a change in between makes the entry stale
+    // instead of hiding it.
+    long version = calendar.version(key.people());
+
+    CachedAnswer entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry != null && entry.version == version) {
+      hits.incrementAndGet();
+      return entry.answer;
+    }
+
+    misses.incrementAndGet();
+    List<TimeRange> answer = Collections.unmodifiableList(
+        new ArrayList<>(findMeetingQuery.query(calendar, request)));
+    synchronized (entries) {
+      entries.put(key, new CachedAnswer(answer, version));
+    }
+    return answer;
+  }
+
+  /**
+   * Returns the number of queries that were answered from the cache.
+   */
+  public long hits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of queries that had to be computed.
+   */
+  public long misses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of answers in the cache, including the ones that are no longer valid.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * The canonical form of a request: its attendees in sorted order and its duration.
+   */
+  private static final class Key {
+    private final List<String> attendees;
+    private final List<String> optionalAttendees;
+    private final long duration;
+
+    Key(MeetingRequest request) {
+      this.attendees = new ArrayList<>(new TreeSet<>(request.getAttendees()));
+      this.optionalAttendees = new ArrayList<>(new TreeSet<>(request.getOptionalAttendees()));
+      this.duration = request.getDuration();
+    }
+
+    /** Returns everyone whose events can change the answer. */
+    List<String> people() {
+      List<String> people = new ArrayList<>(attendees);
+      people.addAll(optionalAttendees);
+      return people;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration && attendees.equals(key.attendees)
+          && optionalAttendees.equals(key.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * attendees.hashCode() + optionalAttendees.hashCode())
+          + Long.hashCode(duration);
+    }
+  }
+
+  private static final class CachedAnswer {
+    private final List<TimeRange> answer;
+    private final long version;
+
+    CachedAnswer(List<TimeRange> answer, long version) {
+      this.answer = answer;
+      this.version = version;
+    }
+  }
+}
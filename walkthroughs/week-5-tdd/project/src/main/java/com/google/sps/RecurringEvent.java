@@ -0,0 +1,235 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An event that repeats at a fixed period, like a daily stand-up or a weekly 1:1. Only the rule is
+ * stored: the first occurrence, the period, when the series ends and which occurrences are
+ * skipped. Occurrences are worked out when they are asked for, and only those that overlap the
+ * window that is asked about, so a series that goes on for years costs no more than a single event.
+ *
+ * <p>Recurring events are read-only. The methods that end or change a series return a new one.
+ */
+public final class RecurringEvent {
+  private final String title;
+  private final HorizonRange first;
+  private final long period;
+  private final Set<String> attendees;
+
+  // The number of occurrences, counting skipped ones, or Long.MAX_VALUE for no limit.
+  private final long count;
+  // Occurrences that start at or after this minute do not take place.
+  private final long until;
+  // The start minutes of the occurrences that do not take place.
+  private final Set<Long> exceptions;
+
+  /**
+   * Creates a series that starts at {@code first}, repeats every {@code period} minutes and never
+   * ends.
+   *
+   * @param title The human-readable name for the events. Must be non-null.
+   * @param first The first occurrence. Must be non-null.
+   * @param period The minutes from the start of one occurrence to the start of the next. Must be
+   *     positive.
+   * @param attendees The people attending every occurrence. Must be non-null.
+   */
+  public RecurringEvent(
+      String title, HorizonRange first, long period, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be positive");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.first = first;
+    this.period = period;
+    this.attendees = Collections.unmodifiableSet(new LinkedHashSet<>(attendees));
+    this.count = Long.MAX_VALUE;
+    this.until = Long.MAX_VALUE;
+    this.exceptions = Collections.emptySet();
+  }
+
+  private RecurringEvent(String title, HorizonRange first, long period, Set<String> attendees,
+      long count, long until, Set<Long> exceptions) {
+    this.title = title;
+    this.first = first;
+    this.period = period;
+    this.attendees = attendees;
+    this.count = count;
+    this.until = until;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Returns a series that takes place at {@code when} every day from the day {@code firstDay} on.
+   */
+  public static RecurringEvent daily(
+      String title, int firstDay, TimeRange when, Collection<String> attendees) {
+    return new RecurringEvent(
+        title, HorizonRange.onDay(firstDay, when), HorizonRange.MINUTES_PER_DAY, attendees);
+  }
+
+  /**
+   * Returns a series that takes place at {@code when} every seven days from the day
+   * {@code firstDay} on.
+   */
+  public static RecurringEvent weekly(
+      String title, int firstDay, TimeRange when, Collection<String> attendees) {
+    return new RecurringEvent(
+        title, HorizonRange.onDay(firstDay, when), 7L * HorizonRange.MINUTES_PER_DAY, attendees);
+  }
+
+  /**
+   * Returns a copy of this series that ends after {@code count} occurrences. Skipped occurrences
+   * count too.
+   */
+  public RecurringEvent times(long count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count cannot be negative");
+    }
+    return new RecurringEvent(title, first, period, attendees, count, until, exceptions);
+  }
+
+  /**
+   * Returns a copy of this series without the occurrences that start at or after the minute
+   * {@code until}.
+   */
+  public RecurringEvent until(long until) {
+    return new RecurringEvent(title, first, period, attendees, count, until, exceptions);
+  }
+
+  /**
+   * Returns a copy of this series without the occurrence that starts at the minute {@code start}.
+   *
+   * @throws IllegalArgumentException if no occurrence of the rule starts at {@code start}
+   */
+  public RecurringEvent except(long start) {
+    if (start < first.start() || (start - first.start()) % period != 0) {
+      throw new IllegalArgumentException("No occurrence starts at " + start);
+    }
+    Set<Long> newExceptions = new HashSet<>(exceptions);
+    newExceptions.add(start);
+    return new RecurringEvent(title, first, period, attendees, count, until,
+        Collections.unmodifiableSet(newExceptions));
+  }
+
+  /**
+   * Returns the human-readable name for the events.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the first occurrence of the rule, even if it is skipped.
+   */
+  public HorizonRange getFirst() {
+    return first;
+  }
+
+  /**
+   * Returns the minutes from the start of one occurrence to the start of the next.
+   */
+  public long getPeriod() {
+    return period;
+  }
+
+  /**
+   * Returns a read-only set of the people attending every occurrence.
+   */
+  public Set<String> getAttendees() {
+    return attendees;
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window}, in ascending order. An occurrence without
+   * a duration is returned if it starts inside the window. The occurrences are worked out one at a
+   * time while the iterator is used, starting with the first one that can overlap the window.
+   */
+  public Iterator<HorizonRange> occurrences(HorizonRange window) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+
+    // The first occurrence that ends after the start of the window, or, without a duration, that
+    // starts at or after it.
+    long offset = window.start() - first.end();
+    long index = Math.max(0,
+        first.duration() > 0 ? Math.floorDiv(offset, period) + 1 : ceilDiv(offset, period));
+    return new OccurrenceIterator(index, window);
+  }
+
+  private static long ceilDiv(long dividend, long divisor) {
+    return -Math.floorDiv(-dividend, divisor);
+  }
+
+  /** Walks the occurrences from a given index until they no longer overlap the window. */
+  private final class OccurrenceIterator implements Iterator<HorizonRange> {
+    private final HorizonRange window;
+    private long index;
+    private HorizonRange next;
+
+    OccurrenceIterator(long index, HorizonRange window) {
+      this.index = index;
+      this.window = window;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && index < count) {
+        long start = first.start() + index * period;
+        if (start >= until || start >= window.end()) {
+          // Every later occurrence starts later still.
+          index = count;
+          break;
+        }
+        index++;
+        if (!exceptions.contains(start)) {
+          next = HorizonRange.fromStartDuration(start, first.duration());
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public HorizonRange next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      HorizonRange result = next;
+      next = null;
+      return result;
+    }
+  }
+}
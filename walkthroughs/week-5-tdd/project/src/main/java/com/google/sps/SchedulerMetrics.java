@@ -0,0 +1,190 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures where {@link FindMeetingQuery} spends its time. Every phase of a query records how many
+ * nanoseconds it took, and every query records how many events it scanned, how many busy times it
+ * merged and how many free times it produced. The values go into lock-free {@link LogHistogram}s.
+ *
+ * <p>Metrics are off unless the system property {@code scheduler.metrics} is {@code true}, and can
+ * be switched on and off at any time with {@link #setEnabled}. While they are off, every
+ * measurement point only reads one volatile field.
+ */
+public final class SchedulerMetrics {
+  /** The steps that a query goes through. */
+  public enum Phase {
+    /** Collecting the busy times of the attendees. */
+    COLLECT,
+    /** Sorting the busy times by start. */
+    SORT,
+    /** Merging overlapping busy times. */
+    MERGE,
+    /** Looking for the gaps between the merged busy times. */
+    SCAN,
+    /** The whole query, including all the phases above. */
+    QUERY
+  }
+
+  /** The amounts of work that a query does. */
+  public enum Counter {
+    /** The events, or the rows of an {@link EventStore}, that were looked at. */
+    EVENTS_SCANNED,
+    /** The busy times that were merged. */
+    INTERVALS_MERGED,
+    /** The free times that were returned. */
+    SLOTS_PRODUCED
+  }
+
+  // Returned by {@link #startTimer} while the metrics are off.
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  private static final SchedulerMetrics SHARED =
+      new SchedulerMetrics(Boolean.getBoolean("scheduler.metrics"));
+
+  private final Map<Phase, LogHistogram> phaseNanos = new EnumMap<>(Phase.class);
+  private final Map<Counter, LogHistogram> counters = new EnumMap<>(Counter.class);
+  private volatile boolean enabled;
+
+  private SchedulerMetrics(boolean enabled) {
+    for (Phase phase : Phase.values()) {
+      phaseNanos.put(phase, new LogHistogram());
+    }
+    for (Counter counter : Counter.values()) {
+      counters.put(counter, new LogHistogram());
+    }
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the metrics that {@link FindMeetingQuery} records into.
+   */
+  public static SchedulerMetrics shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns whether measurements are recorded.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts or stops recording measurements. Values recorded so far are kept.
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Forgets all recorded values.
+   */
+  public void clear() {
+    for (LogHistogram histogram : phaseNanos.values()) {
+      histogram.clear();
+    }
+    for (LogHistogram histogram : counters.values()) {
+      histogram.clear();
+    }
+  }
+
+  /**
+   * Returns the number of times {@code phase} was recorded.
+   */
+  public long count(Phase phase) {
+    return phaseNanos.get(phase).count();
+  }
+
+  /**
+   * Returns the number of queries that recorded {@code counter}.
+   */
+  public long count(Counter counter) {
+    return counters.get(counter).count();
+  }
+
+  /**
+   * Returns whether measurements are recorded and the histogram of every phase and counter, keyed
+   * by their lower case names, ready to be turned into JSON.
+   */
+  public Map<String, Object> snapshot() {
+    Map<String, Object> phases = new LinkedHashMap<>();
+    for (Map.Entry<Phase, LogHistogram> entry : phaseNanos.entrySet()) {
+      phases.put(name(entry.getKey()), entry.getValue().snapshot());
+    }
+    Map<String, Object> counts = new LinkedHashMap<>();
+    for (Map.Entry<Counter, LogHistogram> entry : counters.entrySet()) {
+      counts.put(name(entry.getKey()), entry.getValue().snapshot());
+    }
+
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("enabled", enabled);
+    snapshot.put("phaseNanos", phases);
+    snapshot.put("counters", counts);
+    return snapshot;
+  }
+
+  /**
+   * Returns the time to pass to {@link #stopTimer} at the end of a phase.
+   */
+  long startTimer() {
+    return enabled ? System.nanoTime() : NOT_TIMED;
+  }
+
+  /**
+   * Records the time since {@code startNanos} for {@code phase}, unless the metrics were off when
+   * the timer was started.
+   */
+  void stopTimer(Phase phase, long startNanos) {
+    if (startNanos != NOT_TIMED) {
+      phaseNanos.get(phase).record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Returns the nanoseconds since {@code startNanos}, or 0 if the metrics were off when the timer
+   * was started.
+   */
+  long elapsedNanos(long startNanos) {
+    return startNanos != NOT_TIMED ? System.nanoTime() - startNanos : 0;
+  }
+
+  /**
+   * Records {@code nanos} for {@code phase} if the metrics are on.
+   */
+  void recordNanos(Phase phase, long nanos) {
+    if (enabled) {
+      phaseNanos.get(phase).record(nanos);
+    }
+  }
+
+  /**
+   * Records that a query did {@code amount} of {@code counter} if the metrics are on.
+   */
+  void count(Counter counter, long amount) {
+    if (enabled) {
+      counters.get(counter).record(amount);
+    }
+  }
+
+  private static String name(Enum<?> value) {
+    return value.name().toLowerCase(Locale.ROOT);
+  }
+}
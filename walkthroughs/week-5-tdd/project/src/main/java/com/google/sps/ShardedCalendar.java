@@ -0,0 +1,419 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A calendar whose attendees are split across a fixed number of shards, one per core by default.
+ * Every shard owns the busy times of its attendees and is the only thread that ever touches them.
+ * Work reaches a shard through a lock-free queue, so neither readers nor writers take a lock, and
+ * writes for some people never hold up reads for others.
+ *
+ * <p>A change is sent to the shards that own one of the attendees of its event, and waits until
+ * they applied it. A request for busy times is sent to the shards that own its attendees, and each
+ * of them merges the busy times of its own attendees; the merged lists are then combined with
+ * {@link TimeRangeArray#union}. The busy times of a single attendee are always up to date, but a
+ * read that runs while an event is added may see it for some attendees and not yet for others.
+ *
+ * <p>The shards run on their own daemon threads until the calendar is {@link #close closed}.
+ */
+public final class ShardedCalendar implements BusyTimeSource, AutoCloseable {
+  private final Shard[] shards;
+
+  /**
+   * Creates an empty calendar with one shard for every available processor.
+   */
+  public ShardedCalendar() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates an empty calendar with {@code shardCount} shards.
+   */
+  public ShardedCalendar(int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("shardCount must be positive");
+    }
+
+    shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(i);
+    }
+  }
+
+  /**
+   * Returns the number of shards.
+   */
+  public int shardCount() {
+    return shards.length;
+  }
+
+  /**
+   * Adds {@code event}. The same event can be added more than once.
+   */
+  public void addEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    addEvents(Collections.singletonList(event));
+  }
+
+  /**
+   * Adds all of {@code events}, sending every shard a single batch.
+   */
+  public void addEvents(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    List<List<Event>> batches = batches(events);
+    List<CompletableFuture<Boolean>> changes = new ArrayList<>();
+    for (int i = 0; i < shards.length; i++) {
+      List<Event> batch = batches.get(i);
+      if (!batch.isEmpty()) {
+        Shard shard = shards[i];
+        changes.add(shard.submit(() -> shard.add(batch)));
+      }
+    }
+    joinAll(changes);
+  }
+
+  /**
+   * Removes the busy times of one copy of {@code event}. Either every attendee loses one copy or,
+   * if an attendee did not have it or a shard failed, none of them does.
+   *
+   * @return false if an attendee of the event did not have it
+   */
+  public boolean removeEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    List<Shard> owners = shardsOf(event.attendeeIds());
+    List<CompletableFuture<Boolean>> changes = new ArrayList<>(owners.size());
+    for (Shard shard : owners) {
+      changes.add(submit(shard, () -> shard.remove(event)));
+    }
+
+    // Every shard removes the event from all of its attendees or from none of them, so the shards
+    // that did remove it are the only ones to put it back into.
+    boolean removed = !owners.isEmpty();
+    RuntimeException failure = null;
+    List<Shard> changed = new ArrayList<>();
+    for (int i = 0; i < owners.size(); i++) {
+      try {
+        if (join(changes.get(i))) {
+          changed.add(owners.get(i));
+        } else {
+          removed = false;
+        }
+      } catch (RuntimeException e) {
+        removed = false;
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (!removed) {
+      List<Event> batch = Collections.singletonList(event);
+      List<CompletableFuture<Boolean>> undos = new ArrayList<>(changed.size());
+      for (Shard shard : changed) {
+        undos.add(submit(shard, () -> shard.add(batch)));
+      }
+      joinAll(undos);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the merged busy times of all {@code attendees}, sorted by start time.
+   */
+  @Override
+  public List<TimeRange> busyTimes(Collection<String> attendees) {
+    // The ids of the attendees that are owned by each shard. People without an id have no events.
+    int[][] idsByShard = new int[shards.length][];
+    int[] counts = new int[shards.length];
+    AttendeeDictionary dictionary = AttendeeDictionary.shared();
+    for (String attendee : attendees) {
+      int id = dictionary.lookup(attendee);
+      if (id < 0) {
+        continue;
+      }
+      int shard = id % shards.length;
+      if (idsByShard[shard] == null) {
+        idsByShard[shard] = new int[4];
+      } else if (counts[shard] == idsByShard[shard].length) {
+        idsByShard[shard] = Arrays.copyOf(idsByShard[shard], 2 * counts[shard]);
+      }
+      idsByShard[shard][counts[shard]++] = id;
+    }
+
+    List<CompletableFuture<TimeRangeArray>> parts = new ArrayList<>();
+    for (int i = 0; i < shards.length; i++) {
+      if (counts[i] > 0) {
+        Shard shard = shards[i];
+        int[] ids = Arrays.copyOf(idsByShard[i], counts[i]);
+        parts.add(shard.submit(() -> shard.busyTimes(ids)));
+      }
+    }
+    TimeRangeArray busyTimes = new TimeRangeArray();
+    for (TimeRangeArray part : joinAll(parts)) {
+      busyTimes = TimeRangeArray.union(busyTimes, part);
+    }
+    return busyTimes.toList();
+  }
+
+  /**
+   * Stops the shard threads once they have finished the work that was already sent to them.
+   * Changes and reads that are started afterwards throw an {@code IllegalStateException}.
+   */
+  @Override
+  public void close() {
+    for (Shard shard : shards) {
+      shard.close();
+    }
+  }
+
+  /** Returns the events that touch each shard, in the order of {@code events}. */
+  private List<List<Event>> batches(Collection<Event> events) {
+    List<List<Event>> batches = new ArrayList<>(shards.length);
+    for (int i = 0; i < shards.length; i++) {
+      batches.add(new ArrayList<>());
+    }
+    for (Event event : events) {
+      for (Shard shard : shardsOf(event.attendeeIds())) {
+        batches.get(shard.index).add(event);
+      }
+    }
+    return batches;
+  }
+
+  /** Returns each shard that owns one of {@code ids} once. */
+  private List<Shard> shardsOf(int[] ids) {
+    List<Shard> owners = new ArrayList<>();
+    boolean[] seen = new boolean[shards.length];
+    for (int id : ids) {
+      int shard = id % shards.length;
+      if (!seen[shard]) {
+        seen[shard] = true;
+        owners.add(shards[shard]);
+      }
+    }
+    return owners;
+  }
+
+  /**
+   * Waits for all of {@code futures} and returns their values, rethrowing the first failure as it
+   * was thrown on the shard.
+   */
+  private static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+    List<T> values = new ArrayList<>(futures.size());
+    for (CompletableFuture<T> future : futures) {
+      values.add(join(future));
+    }
+    return values;
+  }
+
+  /**
+   * Waits for {@code future} and returns its value, rethrowing a failure as it was thrown on the
+   * shard.
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Queues {@code work} on {@code shard}, returning a failed future instead of throwing if the
+   * shard no longer takes work, so that the changes already sent to other shards can be undone.
+   */
+  private static <T> CompletableFuture<T> submit(Shard shard, Supplier<T> work) {
+    try {
+      return shard.submit(work);
+    } catch (RuntimeException e) {
+      CompletableFuture<T> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+
+  /**
+   * The busy times of the attendees whose id modulo the shard count is {@link #index}, and the
+   * thread that owns them.
+   */
+  private final class Shard implements Runnable {
+    final int index;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // The busy times of every attendee, sorted by start time but not merged, so that a single
+    // event can be taken out again. Only touched by {@link #thread}.
+    private final Map<Integer, List<TimeRange>> busyTimesById = new HashMap<>();
+
+    // The merged busy times of the attendees that were read since their last change. Only
+    // touched by {@link #thread}, and the arrays are never changed once they are in the map, so
+    // they can be handed to readers.
+    private final Map<Integer, TimeRangeArray> mergedById = new HashMap<>();
+
+    Shard(int index) {
+      this.index = index;
+      this.thread = new Thread(this, "calendar-shard-" + index);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /**
+     * Queues {@code work} to run on the shard's thread and returns its result when it is done.
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> work) {
+      if (closed) {
+        throw new IllegalStateException("The calendar is closed");
+      }
+      CompletableFuture<T> result = new CompletableFuture<>();
+      Runnable task = () -> {
+        try {
+          result.complete(work.get());
+        } catch (RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      };
+      tasks.offer(task);
+      LockSupport.unpark(thread);
+      // If the shard was closed in the meantime, its thread may have stopped before it saw the
+      // task. Whoever takes the task out of the queue first decides what happens to it.
+      if (closed && tasks.remove(task)) {
+        result.completeExceptionally(new IllegalStateException("The calendar is closed"));
+      }
+      return result;
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Runnable task = tasks.poll();
+        if (task != null) {
+          task.run();
+        } else if (closed) {
+          return;
+        } else {
+          // Returns at once if {@link #submit} unparked the thread since the queue was polled.
+          LockSupport.park(this);
+        }
+      }
+    }
+
+    void close() {
+      closed = true;
+      LockSupport.unpark(thread);
+    }
+
+    boolean add(List<Event> events) {
+      for (Event event : events) {
+        for (int id : event.attendeeIds()) {
+          if (id % shards.length != index) {
+            continue;
+          }
+          List<TimeRange> busyTimes = busyTimesById.get(id);
+          if (busyTimes == null) {
+            busyTimes = new ArrayList<>();
+            busyTimesById.put(id, busyTimes);
+          }
+          int position =
+              Collections.binarySearch(busyTimes, event.getWhen(), TimeRange.ORDER_BY_START);
+          busyTimes.add(position < 0 ? -position - 1 : position, event.getWhen());
+          mergedById.remove(id);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Removes one copy of {@code event} from each of its attendees that this shard owns, or
+     * nothing if one of them does not have it.
+     */
+    boolean remove(Event event) {
+      for (int id : event.attendeeIds()) {
+        if (id % shards.length != index) {
+          continue;
+        }
+        List<TimeRange> busyTimes = busyTimesById.get(id);
+        if (busyTimes == null || !busyTimes.contains(event.getWhen())) {
+          return false;
+        }
+      }
+      for (int id : event.attendeeIds()) {
+        if (id % shards.length != index) {
+          continue;
+        }
+        List<TimeRange> busyTimes = busyTimesById.get(id);
+        busyTimes.remove(event.getWhen());
+        if (busyTimes.isEmpty()) {
+          busyTimesById.remove(id);
+        }
+        mergedById.remove(id);
+      }
+      return true;
+    }
+
+    TimeRangeArray busyTimes(int[] ids) {
+      if (ids.length == 1) {
+        return merged(ids[0]);
+      }
+      TimeRangeArray busyTimes = new TimeRangeArray();
+      for (int id : ids) {
+        TimeRangeArray merged = merged(id);
+        for (int i = 0; i < merged.size(); i++) {
+          busyTimes.add(merged.start(i), merged.duration(i));
+        }
+      }
+      busyTimes.merge();
+      return busyTimes;
+    }
+
+    private TimeRangeArray merged(int id) {
+      TimeRangeArray merged = mergedById.get(id);
+      if (merged == null) {
+        List<TimeRange> busyTimes = busyTimesById.get(id);
+        merged = busyTimes == null ? new TimeRangeArray() : TimeRangeArray.of(busyTimes);
+        merged.merge();
+        mergedById.put(id, merged);
+      }
+      return merged;
+    }
+  }
+}
@@ -0,0 +1,234 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Engine that collects the busy times of the attendees in a single pass over the events, sorts
+ * them once by start time and then sweeps over them to find the gaps. This takes O(E log E) time
+ * for E events.
+ *
+ * <p>When the busy times come from a {@link BusyTimeSource}, requests with many attendees are
+ * split into partitions of attendees on a {@link ForkJoinPool}. Every partition merges the busy
+ * times of its own attendees, and the merged lists are combined pairwise. The answer is the same
+ * as on a single thread.
+ *
+ * <p>The time spent collecting busy times and the number of events scanned are recorded in
+ * {@link SchedulerMetrics}. Busy times that come from a {@code BusyTimeSource} are already grouped
+ * by attendee, so no events are counted for them.
+ */
+public final class SweepLineEngine implements MeetingQueryEngine {
+  // Requests with fewer people than this are answered on the calling thread.
+  private static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+
+  // The number of attendees that a single task collects busy times for.
+  private static final int PARTITION_SIZE = 128;
+
+  private final int parallelThreshold;
+  private final ForkJoinPool pool;
+  private final SchedulerMetrics metrics = SchedulerMetrics.shared();
+
+  /**
+   * Creates an engine that splits requests with 1000 or more attendees across the common
+   * {@link ForkJoinPool}.
+   */
+  public SweepLineEngine() {
+    this(DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates an engine that splits requests with {@code parallelThreshold} or more attendees,
+   * mandatory and optional together, across {@code pool}.
+   */
+  public SweepLineEngine(int parallelThreshold, ForkJoinPool pool) {
+    if (parallelThreshold <= 0) {
+      throw new IllegalArgumentException("parallelThreshold must be positive");
+    }
+
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+
+    this.parallelThreshold = parallelThreshold;
+    this.pool = pool;
+  }
+
+  @Override
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    return toList(iterator(events, request));
+  }
+
+  /**
+   * Returns the answer to {@code request} like {@link #query}, but one time at a time. The events
+   * are scanned up front, while the gaps are only looked for when they are asked for.
+   */
+  Iterator<TimeRange> iterator(Collection<Event> events, MeetingRequest request) {
+    long start = metrics.startTimer();
+    AttendeeDictionary dictionary = AttendeeDictionary.shared();
+    BitSet attendees = dictionary.lookupAll(request.getAttendees());
+    BitSet optionalAttendees = dictionary.lookupAll(request.getOptionalAttendees());
+
+    // Times when at least one mandatory attendee is busy, and times when at least one attendee
+    // (mandatory or optional) is busy.
+    TimeRangeArray attendeesBusyTimes = new TimeRangeArray();
+    TimeRangeArray allAttendeesBusyTimes = new TimeRangeArray();
+    for (Event event : events) {
+      if (event.hasAnyAttendee(attendees)) {
+        attendeesBusyTimes.add(event.getWhen());
+        allAttendeesBusyTimes.add(event.getWhen());
+      } else if (event.hasAnyAttendee(optionalAttendees)) {
+        allAttendeesBusyTimes.add(event.getWhen());
+      }
+    }
+    metrics.stopTimer(SchedulerMetrics.Phase.COLLECT, start);
+    metrics.count(SchedulerMetrics.Counter.EVENTS_SCANNED, events.size());
+    return freeTimes(attendeesBusyTimes, allAttendeesBusyTimes, request);
+  }
+
+  /**
+   * Answers {@code request} like {@link #query}, but takes the busy times from {@code source}
+   * instead of scanning every event.
+   */
+  Collection<TimeRange> query(BusyTimeSource source, MeetingRequest request) {
+    return toList(iterator(source, request));
+  }
+
+  /**
+   * Returns the answer to {@code request} like {@link #query(BusyTimeSource, MeetingRequest)}, but
+   * one time at a time.
+   */
+  Iterator<TimeRange> iterator(BusyTimeSource source, MeetingRequest request) {
+    long start = metrics.startTimer();
+    List<String> attendees = new ArrayList<>(request.getAttendees());
+    List<String> optionalAttendees = new ArrayList<>(request.getOptionalAttendees());
+    if (attendees.size() + optionalAttendees.size() >= parallelThreshold) {
+      MergedBusyTimes attendeesTask = new MergedBusyTimes(source, attendees);
+      MergedBusyTimes optionalTask = new MergedBusyTimes(source, optionalAttendees);
+      pool.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(attendeesTask, optionalTask);
+        }
+      });
+      TimeRangeArray attendeesBusyTimes = attendeesTask.join();
+      TimeRangeArray allAttendeesBusyTimes =
+          TimeRangeArray.union(attendeesBusyTimes, optionalTask.join());
+      metrics.stopTimer(SchedulerMetrics.Phase.COLLECT, start);
+      return freeTimes(attendeesBusyTimes, allAttendeesBusyTimes, request);
+    }
+
+    TimeRangeArray attendeesBusyTimes = TimeRangeArray.of(source.busyTimes(attendees));
+    TimeRangeArray allAttendeesBusyTimes = TimeRangeArray.of(source.busyTimes(optionalAttendees));
+    for (int i = 0; i < attendeesBusyTimes.size(); i++) {
+      allAttendeesBusyTimes.add(attendeesBusyTimes.start(i), attendeesBusyTimes.duration(i));
+    }
+    metrics.stopTimer(SchedulerMetrics.Phase.COLLECT, start);
+    return freeTimes(attendeesBusyTimes, allAttendeesBusyTimes, request);
+  }
+
+  /**
+   * Answers {@code request} like {@link #query}, but reads the busy times of the attendees straight
+   * from the columns of {@code store}.
+   */
+  Collection<TimeRange> query(EventStore store, MeetingRequest request) {
+    long start = metrics.startTimer();
+    TimeRangeArray attendeesBusyTimes = new TimeRangeArray();
+    int rows = store.addBusyTimes(request.getAttendees(), attendeesBusyTimes);
+    TimeRangeArray allAttendeesBusyTimes = new TimeRangeArray();
+    rows += store.addBusyTimes(request.getOptionalAttendees(), allAttendeesBusyTimes);
+    // Copy the busy times of the mandatory attendees instead of visiting their rows again.
+    for (int i = 0; i < attendeesBusyTimes.size(); i++) {
+      allAttendeesBusyTimes.add(attendeesBusyTimes.start(i), attendeesBusyTimes.duration(i));
+    }
+    metrics.stopTimer(SchedulerMetrics.Phase.COLLECT, start);
+    metrics.count(SchedulerMetrics.Counter.EVENTS_SCANNED, rows);
+    return toList(freeTimes(attendeesBusyTimes, allAttendeesBusyTimes, request));
+  }
+
+  /**
+   * Returns the gaps of at least {@code duration} minutes between {@code busyTimes}, in ascending
+   * order. The busy times do not need to be sorted or disjoint.
+   */
+  static List<TimeRange> freeTimes(List<TimeRange> busyTimes, long duration) {
+    return freeTimes(TimeRangeArray.of(busyTimes), duration);
+  }
+
+  /**
+   * Returns the gaps of at least {@code duration} minutes between {@code busyTimes}, in ascending
+   * order. {@code busyTimes} is merged in place, and only the gaps become {@code TimeRange}s.
+   */
+  static List<TimeRange> freeTimes(TimeRangeArray busyTimes, long duration) {
+    return toList(new FreeTimeIterator(busyTimes, null, duration));
+  }
+
+  /**
+   * Returns the free times of all attendees, or, if there are none, of the mandatory attendees.
+   * Without mandatory attendees there is nobody left to schedule the meeting for.
+   */
+  private static Iterator<TimeRange> freeTimes(TimeRangeArray attendeesBusyTimes,
+      TimeRangeArray allAttendeesBusyTimes, MeetingRequest request) {
+    TimeRangeArray fallback = request.getAttendees().isEmpty() ? null : attendeesBusyTimes;
+    return new FreeTimeIterator(allAttendeesBusyTimes, fallback, request.getDuration());
+  }
+
+  private static List<TimeRange> toList(Iterator<TimeRange> times) {
+    List<TimeRange> list = new ArrayList<>();
+    while (times.hasNext()) {
+      list.add(times.next());
+    }
+    return list;
+  }
+
+  /**
+   * Collects the merged busy times of a list of attendees. Lists longer than
+   * {@link #PARTITION_SIZE} are split in half, and the halves are combined with
+   * {@link TimeRangeArray#union}.
+   */
+  private static final class MergedBusyTimes extends RecursiveTask<TimeRangeArray> {
+    private static final long serialVersionUID = 1L;
+
+    private final BusyTimeSource source;
+    private final List<String> attendees;
+
+    MergedBusyTimes(BusyTimeSource source, List<String> attendees) {
+      this.source = source;
+      this.attendees = attendees;
+    }
+
+    @Override
+    protected TimeRangeArray compute() {
+      if (attendees.size() <= PARTITION_SIZE) {
+        TimeRangeArray busyTimes = TimeRangeArray.of(source.busyTimes(attendees));
+        busyTimes.merge();
+        return busyTimes;
+      }
+      int middle = attendees.size() / 2;
+      MergedBusyTimes left = new MergedBusyTimes(source, attendees.subList(0, middle));
+      MergedBusyTimes right =
+          new MergedBusyTimes(source, attendees.subList(middle, attendees.size()));
+      right.fork();
+      TimeRangeArray leftBusyTimes = left.compute();
+      return TimeRangeArray.union(leftBusyTimes, right.join());
+    }
+  }
+}
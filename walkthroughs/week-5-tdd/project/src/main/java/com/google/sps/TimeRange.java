@@ -32,7 +32,7 @@ public final class TimeRange {
   public static final Comparator<TimeRange> ORDER_BY_START = new Comparator<TimeRange>() {
     @Override
     public int compare(TimeRange a, TimeRange b) {
-      return Long.compare(a.start, b.start);
+      return Integer.compare(a.start, b.start);
     }
   };
 
@@ -42,7 +42,7 @@ public final class TimeRange {
   public static final Comparator<TimeRange> ORDER_BY_END = new Comparator<TimeRange>() {
     @Override
     public int compare(TimeRange a, TimeRange b) {
-      return Long.compare(a.end(), b.end());
+      return Integer.compare(a.end(), b.end());
     }
   };
 
@@ -127,7 +127,8 @@ public final class TimeRange {
 
   @Override
   public int hashCode() {
-    return Long.hashCode(start) ^ Long.hashCode(duration);
+    // Unlike XOR, this does not give times that swap start and duration the same hash.
+    return 31 * Long.hashCode(start) + Long.hashCode(duration);
   }
 
   @Override
@@ -0,0 +1,209 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A growable list of time ranges stored as primitives. Each range is packed into one {@code long},
+ * with the start in the upper 32 bits and the duration in the lower 32 bits, so sorting the
+ * {@code long}s sorts the ranges by start time without comparators or boxing. The scheduler fills
+ * one of these with busy times and only creates {@link TimeRange} objects for its answer.
+ */
+public final class TimeRangeArray {
+  private static final long DURATION_MASK = 0xFFFFFFFFL;
+
+  private long[] ranges;
+  private int size;
+
+  /**
+   * Creates an empty array.
+   */
+  public TimeRangeArray() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty array with room for {@code capacity} ranges.
+   */
+  public TimeRangeArray(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+
+    this.ranges = new long[capacity];
+  }
+
+  /**
+   * Creates an array with the ranges of {@code ranges}, in the same order.
+   */
+  public static TimeRangeArray of(Collection<TimeRange> ranges) {
+    TimeRangeArray array = new TimeRangeArray(ranges.size());
+    for (TimeRange range : ranges) {
+      array.add(range);
+    }
+    return array;
+  }
+
+  /**
+   * Adds the range that starts at {@code start} and lasts {@code duration} minutes.
+   */
+  public void add(int start, int duration) {
+    if (start < 0 || duration < 0) {
+      throw new IllegalArgumentException("start and duration cannot be negative");
+    }
+
+    if (size == ranges.length) {
+      ranges = Arrays.copyOf(ranges, Math.max(16, 2 * size));
+    }
+    ranges[size++] = pack(start, duration);
+  }
+
+  /**
+   * Adds {@code range}.
+   */
+  public void add(TimeRange range) {
+    add(range.start(), range.duration());
+  }
+
+  /**
+   * Returns the number of ranges.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the start of the range at {@code index}.
+   */
+  public int start(int index) {
+    return (int) (packed(index) >>> 32);
+  }
+
+  /**
+   * Returns the duration of the range at {@code index}.
+   */
+  public int duration(int index) {
+    return (int) (packed(index) & DURATION_MASK);
+  }
+
+  /**
+   * Returns the end of the range at {@code index}. This ending value is the closing exclusive
+   * bound.
+   */
+  public int end(int index) {
+    return start(index) + duration(index);
+  }
+
+  /**
+   * Returns the range at {@code index} as a new {@code TimeRange}.
+   */
+  public TimeRange get(int index) {
+    return TimeRange.fromStartDuration(start(index), duration(index));
+  }
+
+  /**
+   * Removes all ranges, keeping the memory for reuse.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Sorts the ranges by start time in ascending order, and ranges with the same start by duration.
+   */
+  public void sortByStart() {
+    Arrays.sort(ranges, 0, size);
+  }
+
+  /**
+   * Sorts the ranges and then replaces every group of overlapping or touching ranges with one range
+   * that covers the whole group. Afterwards the ranges are sorted and there is a gap between every
+   * two of them. Ranges without a duration are only kept if they do not touch another range.
+   */
+  public void merge() {
+    sortByStart();
+    mergeSorted();
+  }
+
+  /**
+   * Merges the ranges like {@link #merge}, but skips sorting them. The ranges must already be
+   * sorted by {@link #sortByStart}.
+   */
+  void mergeSorted() {
+    int merged = 0;
+    for (int i = 0; i < size; i++) {
+      int start = start(i);
+      int end = end(i);
+      if (merged > 0 && start <= end(merged - 1)) {
+        int mergedStart = start(merged - 1);
+        ranges[merged - 1] = pack(mergedStart, Math.max(end, end(merged - 1)) - mergedStart);
+      } else {
+        ranges[merged++] = ranges[i];
+      }
+    }
+    size = merged;
+  }
+
+  /**
+   * Returns a new array with the ranges of {@code a} and {@code b}, merged like by {@link #merge}.
+   * Both arrays must already be merged; then this takes time linear in their sizes.
+   */
+  public static TimeRangeArray union(TimeRangeArray a, TimeRangeArray b) {
+    TimeRangeArray union = new TimeRangeArray(a.size + b.size);
+    int i = 0;
+    int j = 0;
+    while (i < a.size || j < b.size) {
+      long next = j == b.size || (i < a.size && a.ranges[i] <= b.ranges[j])
+          ? a.ranges[i++]
+          : b.ranges[j++];
+      int start = (int) (next >>> 32);
+      int end = start + (int) (next & DURATION_MASK);
+      if (union.size > 0 && start <= union.end(union.size - 1)) {
+        int unionStart = union.start(union.size - 1);
+        union.ranges[union.size - 1] =
+            pack(unionStart, Math.max(end, union.end(union.size - 1)) - unionStart);
+      } else {
+        union.ranges[union.size++] = next;
+      }
+    }
+    return union;
+  }
+
+  /**
+   * Returns the ranges as a new list of {@code TimeRange}s.
+   */
+  public List<TimeRange> toList() {
+    List<TimeRange> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(get(i));
+    }
+    return list;
+  }
+
+  private long packed(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    return ranges[index];
+  }
+
+  private static long pack(int start, int duration) {
+    return ((long) start << 32) | duration;
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.AvailabilityHeatmap;
+import com.google.sps.MeetingRequest;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a meeting request, in the same JSON as {@code /query}, with the number of attendees who
+ * are free at every minute of the day and the meeting times that the most of them can attend.
+ * Mandatory and optional attendees are counted alike. The optional {@code limit} parameter sets
+ * how many times are returned, 10 by default.
+ */
+@WebServlet("/availability")
+public class AvailabilityServlet extends HttpServlet {
+  private static final int DEFAULT_LIMIT = 10;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+
+    int limit;
+    try {
+      String limitParameter = request.getParameter("limit");
+      limit = limitParameter == null ? DEFAULT_LIMIT : Integer.parseInt(limitParameter);
+    } catch (NumberFormatException e) {
+      limit = -1;
+    }
+    if (limit < 0) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be a number >= 0.");
+      return;
+    }
+    if (meetingRequest.getDuration() <= 0) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "duration must be positive.");
+      return;
+    }
+
+    Set<String> people = new LinkedHashSet<>(meetingRequest.getAttendees());
+    people.addAll(meetingRequest.getOptionalAttendees());
+    AvailabilityHeatmap heatmap =
+        AvailabilityHeatmap.of(SharedCalendar.CALENDAR.events(), people);
+
+    Map<String, Object> availability = new LinkedHashMap<>();
+    availability.put("people", heatmap.size());
+    availability.put("freeCounts", heatmap.freeCounts());
+    availability.put("topWindows",
+        heatmap.topWindows((int) Math.min(meetingRequest.getDuration(), Integer.MAX_VALUE), limit));
+
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(availability));
+  }
+}
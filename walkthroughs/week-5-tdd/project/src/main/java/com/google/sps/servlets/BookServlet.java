@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Books a meeting if all its attendees are still free. The request is a JSON object with a
+ * {@code title}, a {@code start} and {@code duration} in minutes, and a list of {@code attendees}.
+ * The response is the booked event, or a 409 if one of the attendees is busy by now.
+ */
+@WebServlet("/book")
+public class BookServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to an instance of BookingRequest.
+    BookingRequest booking;
+    try {
+      booking = gson.fromJson(request.getReader(), BookingRequest.class);
+    } catch (JsonParseException e) {
+      booking = null;
+    }
+    if (booking == null || booking.title == null || booking.attendees == null
+        || booking.attendees.contains(null) || !isWithinDay(booking.start, booking.duration)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "Expected a title, attendees and a start and duration within the day.");
+      return;
+    }
+
+    Event event = new Event(booking.title,
+        TimeRange.fromStartDuration(booking.start, booking.duration), booking.attendees);
+    if (!SharedCalendar.book(event)) {
+      response.sendError(HttpServletResponse.SC_CONFLICT, "An attendee is busy at that time.");
+      return;
+    }
+
+    // Send the booked event back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(event));
+
+    // The booking is stored, so a failure to compact is only worth a log line.
+    try {
+      SharedCalendar.compactJournalIfLarge();
+    } catch (IOException e) {
+      log("Could not compact the journal", e);
+    }
+  }
+
+  /**
+   * Returns true if a meeting from {@code start} for {@code duration} minutes fits in the day.
+   */
+  static boolean isWithinDay(int start, int duration) {
+    // Subtract instead of adding, so that a huge duration cannot overflow into a valid end.
+    return start >= TimeRange.START_OF_DAY && duration >= 0
+        && duration <= TimeRange.WHOLE_DAY.end() - start;
+  }
+
+  /** The JSON form of a booking. */
+  private static final class BookingRequest {
+    private String title;
+    private int start;
+    private int duration;
+    private List<String> attendees;
+  }
+}
@@ -0,0 +1,202 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The events of one version of the calendar, ready to be sent. The JSON of the whole calendar is
+ * kept both plain and gzipped, and the events are indexed by attendee and sorted by start time so
+ * that filtered requests only look at the events they can return. Next to every sorted list is the
+ * latest end among each of its prefixes, which never decreases, so a filter can skip all events
+ * that end before its window with a binary search.
+ */
+final class EventsSnapshot {
+  private final long version;
+  private final byte[] json;
+  private final byte[] gzippedJson;
+  private final List<Event> eventsByStart;
+  private final int[] latestEndsByStart;
+  private final Map<String, List<Event>> eventsByAttendee = new HashMap<>();
+  private final Map<String, int[]> latestEndsByAttendee = new HashMap<>();
+
+  /**
+   * Creates the snapshot of {@code events}, which are the events of the calendar at
+   * {@code version}.
+   */
+  EventsSnapshot(long version, List<Event> events) {
+    this.version = version;
+    this.json = toJson(events);
+    this.gzippedJson = gzip(json);
+
+    eventsByStart = new ArrayList<>(events);
+    // The sort is stable, so events with the same start keep their order.
+    Collections.sort(eventsByStart,
+        (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    for (Event event : eventsByStart) {
+      for (String attendee : event.getAttendees()) {
+        List<Event> attendeeEvents = eventsByAttendee.get(attendee);
+        if (attendeeEvents == null) {
+          attendeeEvents = new ArrayList<>();
+          eventsByAttendee.put(attendee, attendeeEvents);
+        }
+        attendeeEvents.add(event);
+      }
+    }
+    latestEndsByStart = latestEnds(eventsByStart);
+    for (Map.Entry<String, List<Event>> entry : eventsByAttendee.entrySet()) {
+      latestEndsByAttendee.put(entry.getKey(), latestEnds(entry.getValue()));
+    }
+  }
+
+  /**
+   * Returns the calendar version this snapshot was taken at.
+   */
+  long version() {
+    return version;
+  }
+
+  /**
+   * Returns the entity tag of the JSON of all events, or of {@link #gzippedJson()} if
+   * {@code gzipped} is true. The two encodings are different representations, so their tags differ.
+   */
+  String etag(boolean gzipped) {
+    return tag(Long.toString(version), gzipped);
+  }
+
+  /**
+   * Returns the entity tag of {@code filteredJson(attendee, from, to)}, or of its gzipped form if
+   * {@code gzipped} is true. The tag spells out the version and the filter, so two requests get the
+   * same tag exactly when they ask for the same events.
+   */
+  String etag(String attendee, int from, int to, boolean gzipped) {
+    StringBuilder tag = new StringBuilder().append(version).append('-').append(from).append('-')
+        .append(to);
+    if (attendee != null) {
+      // Hex keeps any name within the characters an entity tag may hold.
+      tag.append('-');
+      for (byte b : attendee.getBytes(StandardCharsets.UTF_8)) {
+        tag.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+    }
+    return tag(tag.toString(), gzipped);
+  }
+
+  /**
+   * Returns the JSON of all events, in the order they were added. Callers must not change the
+   * array.
+   */
+  byte[] json() {
+    return json;
+  }
+
+  /**
+   * Returns {@link #json()} compressed with gzip. Callers must not change the array.
+   */
+  byte[] gzippedJson() {
+    return gzippedJson;
+  }
+
+  /**
+   * Returns the JSON of the events, sorted by start time, that {@code attendee} attends and that
+   * take place between the minutes {@code from} (inclusive) and {@code to} (exclusive). A null
+   * {@code attendee} matches every event.
+   */
+  byte[] filteredJson(String attendee, int from, int to) {
+    List<Event> candidates = attendee == null
+        ? eventsByStart
+        : eventsByAttendee.getOrDefault(attendee, Collections.<Event>emptyList());
+    int[] latestEnds = attendee == null ? latestEndsByStart : latestEndsByAttendee.get(attendee);
+    TimeRange window = TimeRange.fromStartEnd(from, to, false);
+
+    List<Event> events = new ArrayList<>();
+    // The events before this one all end before the window, even those without a duration.
+    int first = candidates.isEmpty() ? 0 : firstEndingAtOrAfter(latestEnds, from);
+    for (Event event : candidates.subList(first, candidates.size())) {
+      TimeRange when = event.getWhen();
+      if (when.start() >= to) {
+        // The events are sorted by start, so none of the remaining ones is in the window.
+        break;
+      }
+      // Events without a duration overlap nothing, so check their start instead.
+      if (when.duration() > 0 ? when.overlaps(window) : when.start() >= from) {
+        events.add(event);
+      }
+    }
+    return toJson(events);
+  }
+
+  /**
+   * Returns the latest end among the first {@code i + 1} of {@code events} for every {@code i}.
+   */
+  private static int[] latestEnds(List<Event> events) {
+    int[] latestEnds = new int[events.size()];
+    int latestEnd = Integer.MIN_VALUE;
+    for (int i = 0; i < latestEnds.length; i++) {
+      latestEnd = Math.max(latestEnd, events.get(i).getWhen().end());
+      latestEnds[i] = latestEnd;
+    }
+    return latestEnds;
+  }
+
+  /**
+   * Returns the first index at which {@code latestEnds} is at least {@code minute}, or its length.
+   */
+  private static int firstEndingAtOrAfter(int[] latestEnds, int minute) {
+    int low = 0;
+    int high = latestEnds.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (latestEnds[middle] < minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static String tag(String value, boolean gzipped) {
+    return "\"" + value + (gzipped ? "-gzip" : "") + "\"";
+  }
+
+  private static byte[] toJson(List<Event> events) {
+    return new Gson().toJson(events).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** Returns {@code bytes} compressed with gzip. */
+  static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      // Writing to memory does not fail.
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+}
@@ -14,23 +14,164 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.TimeRange;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Returns the events of the calendar as JSON. The JSON is only built again when the calendar
+ * changes; until then the same bytes are sent, gzipped if the client accepts it, and a client that
+ * already has them gets a 304 via their ETag.
+ *
+ * <p>The optional parameters {@code attendee}, {@code from} and {@code to} limit the response to
+ * the events of one attendee and to the events between two minutes of the day.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private final AtomicReference<EventsSnapshot> snapshot = new AtomicReference<>();
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    String attendee = request.getParameter("attendee");
+    int from;
+    int to;
+    try {
+      from = minuteParameter(request, "from", TimeRange.START_OF_DAY);
+      to = minuteParameter(request, "to", TimeRange.WHOLE_DAY.end());
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    if (from > to) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "from must not be after to.");
+      return;
+    }
+
+    EventsSnapshot events = currentSnapshot();
+    boolean filtered = attendee != null || request.getParameter("from") != null
+        || request.getParameter("to") != null;
+    boolean gzipped = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = filtered ? events.etag(attendee, from, to, gzipped) : events.etag(gzipped);
+    // The response depends on Accept-Encoding, so caches must keep the encodings apart.
+    response.setHeader("Vary", "Accept-Encoding");
+    if (matches(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      response.setHeader("ETag", etag);
+      return;
+    }
+
+    byte[] json = filtered ? events.filteredJson(attendee, from, to) : events.json();
+    byte[] body = json;
+    if (gzipped) {
+      body = filtered ? EventsSnapshot.gzip(json) : events.gzippedJson();
+      response.setHeader("Content-Encoding", "gzip");
+    }
 
     // Send the JSON back as the response
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("ETag", etag);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /**
+   * Returns the snapshot of the current version of the calendar, taking a new one if the calendar
+   * changed since the last request.
+   */
+  private EventsSnapshot currentSnapshot() {
+    long version = SharedCalendar.CALENDAR.version();
+    EventsSnapshot current = snapshot.get();
+    if (current == null || current.version() != version) {
+      // Several requests may build the same snapshot at once; any of them can be kept.
+      current = new EventsSnapshot(version, SharedCalendar.CALENDAR.events());
+      snapshot.set(current);
+    }
+    return current;
+  }
+
+  /**
+   * Returns the minute of the day in the parameter {@code name}, or {@code defaultValue} if there
+   * is no such parameter.
+   */
+  private static int minuteParameter(HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    int minute;
+    try {
+      minute = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number of minutes.");
+    }
+    if (minute < TimeRange.START_OF_DAY || minute > TimeRange.WHOLE_DAY.end()) {
+      throw new IllegalArgumentException(name + " must be a minute of the day.");
+    }
+    return minute;
+  }
+
+  /** Returns true if the {@code If-None-Match} header {@code ifNoneMatch} matches {@code etag}. */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      // Weak comparison is enough for a 304.
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the {@code Accept-Encoding} header {@code acceptEncoding} allows gzip, either
+   * by name or through {@code *}. An entry with {@code q=0} refuses its coding.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Boolean gzip = null;
+    boolean anyCoding = false;
+    for (String entry : acceptEncoding.split(",")) {
+      String[] parts = entry.split(";");
+      String coding = parts[0].trim().toLowerCase();
+      boolean accepted = quality(parts) > 0;
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        gzip = accepted;
+      } else if (coding.equals("*")) {
+        anyCoding = accepted;
+      }
+    }
+    // A coding that is named wins over {@code *}.
+    return gzip != null ? gzip : anyCoding;
+  }
+
+  /**
+   * Returns the {@code q} parameter among {@code parts}, which follow the coding, or 1 if there is
+   * none. A value that is not a number counts as a refusal.
+   */
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
   }
 }
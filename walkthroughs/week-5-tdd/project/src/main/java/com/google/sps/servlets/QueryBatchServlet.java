@@ -0,0 +1,59 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests in one call. The response is a JSON array with the
+ * possible meeting times of every request, in the same order as the requests.
+ */
+@WebServlet("/query-batch")
+public class QueryBatchServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to instances of MeetingRequest.
+    MeetingRequest[] meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+
+    // Find the possible meeting times of all requests at once, in the calendar that bookings go to.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<Collection<TimeRange>> answers =
+        findMeetingQuery.queryAll(SharedCalendar.CALENDAR, Arrays.asList(meetingRequests));
+
+    // Convert the times to JSON
+    String jsonResponse = gson.toJson(answers);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(jsonResponse);
+  }
+}
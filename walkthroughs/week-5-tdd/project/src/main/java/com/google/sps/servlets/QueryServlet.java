@@ -14,14 +14,14 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -36,10 +36,30 @@ public class QueryServlet extends HttpServlet {
     // Convert the JSON to an instance of MeetingRequest.
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    // The optional limit parameter asks for the first few times only.
+    String limitParameter = request.getParameter("limit");
+    Collection<TimeRange> answer;
+    if (limitParameter != null) {
+      int limit;
+      try {
+        limit = Integer.parseInt(limitParameter);
+      } catch (NumberFormatException e) {
+        limit = -1;
+      }
+      if (limit < 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be a number >= 0.");
+        return;
+      }
+
+      // Stop looking once enough times were found.
+      try (Stream<TimeRange> times =
+          new FindMeetingQuery().stream(SharedCalendar.CALENDAR, meetingRequest)) {
+        answer = times.limit(limit).collect(Collectors.toList());
+      }
+    } else {
+      // Find the possible meeting times, or reuse them if the same meeting was asked for before.
+      answer = SharedCalendar.QUERY_CACHE.query(meetingRequest);
+    }
 
     // Convert the times to JSON
     String jsonResponse = gson.toJson(answer);
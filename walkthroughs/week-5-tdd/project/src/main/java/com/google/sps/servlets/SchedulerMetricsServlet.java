@@ -0,0 +1,57 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.SchedulerMetrics;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports where {@code /query} spends its time, as a JSON object with a histogram of the
+ * nanoseconds of every phase and of the work counted per query. See {@link SchedulerMetrics}.
+ *
+ * <p>A POST with the parameter {@code enabled=true} or {@code enabled=false} switches the
+ * measurements on or off, and one with {@code clear=true} forgets the values recorded so far.
+ */
+@WebServlet("/scheduler-metrics")
+public class SchedulerMetricsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(SchedulerMetrics.shared().snapshot()));
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String enabled = request.getParameter("enabled");
+    if (enabled != null && !enabled.equals("true") && !enabled.equals("false")) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "enabled must be true or false.");
+      return;
+    }
+
+    SchedulerMetrics metrics = SchedulerMetrics.shared();
+    if (enabled != null) {
+      metrics.setEnabled(Boolean.parseBoolean(enabled));
+    }
+    if ("true".equals(request.getParameter("clear"))) {
+      metrics.clear();
+    }
+    doGet(request, response);
+  }
+}
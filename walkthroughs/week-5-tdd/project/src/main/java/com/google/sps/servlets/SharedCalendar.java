@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AvailabilitySubscriptions;
+import com.google.sps.BookingService;
+import com.google.sps.CalendarIndex;
+import com.google.sps.Event;
+import com.google.sps.EventJournal;
+import com.google.sps.EventRegistry;
+import com.google.sps.Events;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The calendar that all servlets read from, the cache of query answers in front of it, the
+ * service that books new meetings into it and the answers that clients follow as it changes.
+ *
+ * <p>If the system property {@code calendar.dataDirectory} is set, the calendar is loaded from an
+ * {@link EventJournal} in that directory and every booking is written to it, so bookings survive a
+ * restart. The first start copies {@link Events#events} into the journal. Without the property the
+ * calendar starts from {@link Events#events} every time.
+ */
+final class SharedCalendar {
+  // The number of answers the query cache keeps.
+  private static final int QUERY_CACHE_CAPACITY = 10000;
+
+  // The journal is folded into a snapshot once it holds this many records.
+  private static final int COMPACT_AFTER_RECORDS = 10000;
+
+  // Null if the calendar is not kept on disk.
+  private static final EventJournal JOURNAL = openJournal();
+
+  static final CalendarIndex CALENDAR = new CalendarIndex(loadEvents());
+
+  static final QueryCache QUERY_CACHE = new QueryCache(CALENDAR, QUERY_CACHE_CAPACITY);
+
+  static final BookingService BOOKINGS = new BookingService(CALENDAR);
+
+  static final AvailabilitySubscriptions SUBSCRIPTIONS = new AvailabilitySubscriptions(CALENDAR);
+
+  private SharedCalendar() {
+    // Disallow instances.
+  }
+
+  /**
+   * Books {@code event} like {@link BookingService#book} and writes it to the journal, if there is
+   * one. If the journal cannot be written, the booking is taken back, so that the calendar never
+   * holds a booking that a restart would lose.
+   *
+   * @return false if an attendee is busy
+   */
+  static boolean book(Event event) throws IOException {
+    if (!BOOKINGS.book(event)) {
+      return false;
+    }
+    if (JOURNAL != null) {
+      try {
+        JOURNAL.recordAdd(event);
+      } catch (IOException | RuntimeException e) {
+        BOOKINGS.cancel(event);
+        throw e;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Folds the journal into a snapshot once it holds enough records. This is separate from
+   * {@link #book}, so that a failed compaction does not fail a booking that is already stored.
+   */
+  static void compactJournalIfLarge() throws IOException {
+    if (JOURNAL != null) {
+      JOURNAL.compactIfAtLeast(COMPACT_AFTER_RECORDS);
+    }
+  }
+
+  private static EventJournal openJournal() {
+    String directory = System.getProperty("calendar.dataDirectory");
+    if (directory == null) {
+      return null;
+    }
+    try {
+      return EventJournal.open(Paths.get(directory));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static List<Event> loadEvents() {
+    if (JOURNAL == null) {
+      return Arrays.asList(Events.events);
+    }
+    try {
+      // Only a new journal is seeded, so that events which were all removed stay removed.
+      if (JOURNAL.isNew()) {
+        List<Event> events = Arrays.asList(Events.events);
+        for (Event event : events) {
+          JOURNAL.recordAdd(event);
+        }
+        JOURNAL.compact();
+        return events;
+      }
+      List<Event> events = JOURNAL.load();
+      // Every record in the journal is read into its own event, so share the copies of the events,
+      // titles and attendees that repeat. Events that were added more than once stay in the list.
+      EventRegistry registry = new EventRegistry();
+      List<Event> interned = new ArrayList<>(events.size());
+      for (Event event : events) {
+        interned.add(registry.intern(event));
+      }
+      return interned;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
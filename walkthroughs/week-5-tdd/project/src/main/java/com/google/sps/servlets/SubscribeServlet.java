@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.AvailabilitySubscriptions;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Streams the answer to a meeting request as server-sent events, once at the start and again
+ * every time a change to the calendar changes it. Each event is the same JSON as {@code /query}
+ * returns. The request is given by the repeated {@code attendee} and {@code optional} parameters
+ * and the {@code duration} parameter, in minutes.
+ *
+ * <p>The stream holds on to its servlet thread until the client goes away.
+ */
+@WebServlet("/subscribe")
+public class SubscribeServlet extends HttpServlet {
+  // A comment is sent this often while nothing changes, so that a client that went away is noticed.
+  private static final long HEARTBEAT_SECONDS = 15;
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    long duration;
+    try {
+      duration = Long.parseLong(request.getParameter("duration"));
+    } catch (NumberFormatException e) {
+      duration = -1;
+    }
+    if (duration < 0) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "duration must be a number >= 0.");
+      return;
+    }
+
+    MeetingRequest meetingRequest =
+        new MeetingRequest(parameterValues(request, "attendee"), duration);
+    for (String person : parameterValues(request, "optional")) {
+      meetingRequest.addOptionalAttendee(person);
+    }
+
+    // The calendar wakes the stream while it waits, so it only leaves a token here and the answer
+    // is worked out on this thread. One token stands for any number of changes.
+    BlockingQueue<Boolean> wakeUps = new ArrayBlockingQueue<>(1);
+    AvailabilitySubscriptions.Subscription subscription =
+        SharedCalendar.SUBSCRIPTIONS.subscribe(meetingRequest, () -> wakeUps.offer(true));
+
+    response.setContentType("text/event-stream");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    PrintWriter writer = response.getWriter();
+    Gson gson = new Gson();
+    try {
+      List<TimeRange> sent = null;
+      while (!writer.checkError()) {
+        List<TimeRange> answer = subscription.current();
+        if (!answer.equals(sent)) {
+          writer.write("data: " + gson.toJson(answer) + "\n\n");
+          sent = answer;
+        } else {
+          writer.write(": heartbeat\n\n");
+        }
+        writer.flush();
+
+        wakeUps.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      subscription.cancel();
+    }
+  }
+
+  private static List<String> parameterValues(HttpServletRequest request, String name) {
+    String[] values = request.getParameterValues(name);
+    return values == null ? Collections.emptyList() : Arrays.asList(values);
+  }
+}
@@ -0,0 +1,82 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  @Test
+  public void givesEachNameOneId() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    int a = dictionary.idOf("Person A");
+    int b = dictionary.idOf("Person B");
+
+    Assert.assertEquals(0, a);
+    Assert.assertEquals(1, b);
+    Assert.assertEquals(a, dictionary.idOf(new String("Person A")));
+    Assert.assertEquals("Person B", dictionary.nameOf(b));
+    Assert.assertEquals(2, dictionary.size());
+  }
+
+  @Test
+  public void lookupDoesNotAddNames() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    Assert.assertEquals(-1, dictionary.lookup("Person A"));
+    Assert.assertEquals(0, dictionary.size());
+    Assert.assertTrue(dictionary.lookupAll(Arrays.asList("Person A")).isEmpty());
+  }
+
+  @Test
+  public void eventAttendeesBehaveLikeASet() {
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY,
+        Arrays.asList("Person A", "Person B", "Person A"));
+
+    Set<String> expected = new HashSet<>(Arrays.asList("Person A", "Person B"));
+    Assert.assertEquals(expected, event.getAttendees());
+    Assert.assertEquals(event.getAttendees(), expected);
+    Assert.assertTrue(event.getAttendees().contains("Person B"));
+    Assert.assertFalse(event.getAttendees().contains("Person C"));
+    Assert.assertEquals(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList("Person B", "Person A")), event);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void eventAttendeesAreReadOnly() {
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList("Person A"));
+
+    event.getAttendees().clear();
+  }
+
+  @Test
+  public void eventJsonListsAttendeeNames() {
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(0, 30),
+        Arrays.asList("Person A"));
+
+    Assert.assertEquals(
+        "{\"title\":\"Event 1\",\"when\":{\"start\":0,\"duration\":30},\"attendees\":[\"Person A\"]}",
+        new Gson().toJson(event));
+  }
+}
@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilityHeatmapTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void countsEveryPersonOncePerMinute() {
+    // A has two overlapping events, and B one that A shares. C is not in the group.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+
+    AvailabilityHeatmap heatmap =
+        AvailabilityHeatmap.of(events, Arrays.asList(PERSON_A, PERSON_B, PERSON_A));
+
+    Assert.assertEquals(2, heatmap.size());
+    Assert.assertEquals(2, heatmap.freeAt(TIME_0900AM - 1));
+    Assert.assertEquals(1, heatmap.freeAt(TIME_0900AM));
+    Assert.assertEquals(0, heatmap.freeAt(TIME_0930AM));
+    Assert.assertEquals(0, heatmap.freeAt(TIME_1100AM - 1));
+    Assert.assertEquals(2, heatmap.freeAt(TIME_1100AM));
+  }
+
+  @Test
+  public void topWindowsAreRankedByAttendance() {
+    // A meeting that starts in the last 30 minutes of A's event would run into B's, so nobody
+    // can attend it.
+    //
+    // Events  : |--A--|
+    //                 |--B--|
+    // Day     : |---------------------------|
+    // Options : |--1--|
+    //                 |--1--|
+    //                    |--------2---------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)));
+
+    AvailabilityHeatmap heatmap = AvailabilityHeatmap.of(events, Arrays.asList(PERSON_A, PERSON_B));
+
+    List<MeetingSlot> expected = Arrays.asList(
+        new MeetingSlot(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), 2),
+        new MeetingSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), 1),
+        new MeetingSlot(TimeRange.fromStartEnd(TIME_0900AM,
+            TIME_1000AM + DURATION_30_MINUTES - 1, false), 1));
+
+    Assert.assertEquals(expected, heatmap.topWindows(DURATION_30_MINUTES, 3));
+    Assert.assertEquals(expected.subList(0, 2), heatmap.topWindows(DURATION_30_MINUTES, 2));
+    Assert.assertEquals(Arrays.asList(), heatmap.topWindows(DURATION_30_MINUTES, 0));
+  }
+
+  @Test
+  public void nobodyFreeMeansNoWindows() {
+    Collection<Event> events =
+        Arrays.asList(new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+
+    AvailabilityHeatmap heatmap = AvailabilityHeatmap.of(events, Arrays.asList(PERSON_A));
+
+    Assert.assertEquals(Arrays.asList(), heatmap.topWindows(DURATION_30_MINUTES, 5));
+  }
+
+  @Test
+  public void matchesCountingEveryStartOnRandomCalendars() {
+    Random random = new Random(42);
+    List<String> group = Arrays.asList(RandomCalendars.PEOPLE);
+
+    for (int round = 0; round < 200; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, true);
+      int duration = 1 + random.nextInt(180);
+      AvailabilityHeatmap heatmap = AvailabilityHeatmap.of(events, group);
+
+      for (int minute = 0; minute < TimeRange.WHOLE_DAY.duration(); minute++) {
+        Assert.assertEquals("round " + round, available(events, group, minute, 1),
+            heatmap.freeAt(minute));
+      }
+      Assert.assertEquals("round " + round, rankedSlots(events, group, duration),
+          heatmap.topWindows(duration, Integer.MAX_VALUE));
+    }
+  }
+
+  /** Returns how many of {@code group} attend no event that overlaps the meeting. */
+  private static int available(Collection<Event> events, List<String> group, int start,
+      int duration) {
+    TimeRange meeting = TimeRange.fromStartDuration(start, duration);
+    int available = 0;
+    for (String person : group) {
+      boolean free = true;
+      for (Event event : events) {
+        TimeRange when = event.getWhen();
+        // Events without a duration only block the meetings that span them.
+        boolean blocks = when.duration() == 0
+            ? when.start() > start && when.start() < start + duration
+            : when.overlaps(meeting);
+        if (blocks && event.getAttendees().contains(person)) {
+          free = false;
+        }
+      }
+      if (free) {
+        available++;
+      }
+    }
+    return available;
+  }
+
+  /** Groups neighbouring starts with the same count into slots and ranks them. */
+  private static List<MeetingSlot> rankedSlots(
+      Collection<Event> events, List<String> group, int duration) {
+    List<MeetingSlot> slots = new ArrayList<>();
+    int lastStart = TimeRange.WHOLE_DAY.duration() - duration;
+    int start = 0;
+    while (start <= lastStart) {
+      int available = available(events, group, start, duration);
+      int end = start;
+      while (end + 1 <= lastStart && available(events, group, end + 1, duration) == available) {
+        end++;
+      }
+      if (available > 0) {
+        slots.add(new MeetingSlot(TimeRange.fromStartEnd(start, end + duration, false), available));
+      }
+      start = end + 1;
+    }
+    Collections.sort(slots, (a, b) -> a.getAvailableAttendees() != b.getAvailableAttendees()
+        ? Integer.compare(b.getAvailableAttendees(), a.getAvailableAttendees())
+        : Integer.compare(a.getWhen().start(), b.getWhen().start()));
+    return slots;
+  }
+}
@@ -0,0 +1,143 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilitySubscriptionsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void wakesTheSubscriberWhenAnAttendeeChanges() {
+    CalendarIndex calendar = new CalendarIndex();
+    AvailabilitySubscriptions subscriptions = new AvailabilitySubscriptions(calendar);
+    AtomicInteger wakeUps = new AtomicInteger();
+    AvailabilitySubscriptions.Subscription subscription = subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES),
+        wakeUps::incrementAndGet);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), subscription.current());
+
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR), Arrays.asList(PERSON_A));
+    calendar.addEvent(event);
+    Assert.assertEquals(1, wakeUps.get());
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true)), subscription.current());
+
+    calendar.removeEvent(event);
+    Assert.assertEquals(2, wakeUps.get());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), subscription.current());
+  }
+
+  @Test
+  public void ignoresChangesOfOtherPeople() {
+    CalendarIndex calendar = new CalendarIndex();
+    AvailabilitySubscriptions subscriptions = new AvailabilitySubscriptions(calendar);
+    AtomicInteger wakeUps = new AtomicInteger();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    AvailabilitySubscriptions.Subscription subscription =
+        subscriptions.subscribe(request, wakeUps::incrementAndGet);
+
+    // C is not part of the request.
+    calendar.addEvent(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR), Arrays.asList(PERSON_C)));
+    Assert.assertEquals(0, wakeUps.get());
+
+    // B is busy all day, so the meeting is planned for A alone, who is still free all day.
+    calendar.addEvent(new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+    Assert.assertEquals(1, wakeUps.get());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), subscription.current());
+  }
+
+  @Test
+  public void stopsWakingOnceCancelled() {
+    CalendarIndex calendar = new CalendarIndex();
+    AvailabilitySubscriptions subscriptions = new AvailabilitySubscriptions(calendar);
+    AtomicInteger wakeUps = new AtomicInteger();
+    AvailabilitySubscriptions.Subscription subscription = subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES),
+        wakeUps::incrementAndGet);
+    Assert.assertEquals(1, subscriptions.size());
+
+    subscription.cancel();
+    calendar.addEvent(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR), Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(0, subscriptions.size());
+    Assert.assertEquals(0, wakeUps.get());
+  }
+
+  @Test
+  public void keepsTheSameAnswerAsAFullQuery() {
+    // The answers are only read after some of the changes, so that a few of them pile up.
+    Random random = new Random(2019);
+    for (int round = 0; round < 300; round++) {
+      CalendarIndex calendar = new CalendarIndex(RandomCalendars.events(random, 8, true));
+      AvailabilitySubscriptions subscriptions = new AvailabilitySubscriptions(calendar);
+      List<MeetingRequest> requests = new ArrayList<>();
+      List<AvailabilitySubscriptions.Subscription> subscribed = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        MeetingRequest request = RandomCalendars.request(random);
+        requests.add(request);
+        subscribed.add(subscriptions.subscribe(request, () -> {}));
+      }
+
+      List<Event> events = new ArrayList<>(calendar.events());
+      for (int change = 0; change < 20; change++) {
+        if (!events.isEmpty() && random.nextBoolean()) {
+          calendar.removeEvent(events.remove(random.nextInt(events.size())));
+        } else {
+          Event event = RandomCalendars.events(random, 1, true).stream()
+              .findFirst()
+              .orElse(new Event("Empty", TimeRange.WHOLE_DAY, Collections.emptyList()));
+          calendar.addEvent(event);
+          events.add(event);
+        }
+        if (random.nextInt(3) != 0) {
+          continue;
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+          Collection<TimeRange> expected = new FindMeetingQuery().query(calendar, requests.get(i));
+          Assert.assertEquals("Request " + requests.get(i).getAttendees() + " "
+              + requests.get(i).getOptionalAttendees() + " after " + events,
+              new ArrayList<>(expected), subscribed.get(i).current());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BookingServiceTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Test
+  public void rejectsTimesWhenAnAttendeeIsBusy() {
+    CalendarIndex calendar = new CalendarIndex();
+    BookingService bookings = new BookingService(calendar);
+
+    Assert.assertTrue(bookings.book(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A))));
+    Assert.assertFalse(bookings.book(new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0930AM, DURATION_60_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B))));
+    Assert.assertTrue(bookings.book(new Event("Event 3",
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B))));
+
+    Assert.assertEquals(2, calendar.events().size());
+  }
+
+  @Test
+  public void cancelledTimesCanBeBookedAgain() {
+    CalendarIndex calendar = new CalendarIndex();
+    BookingService bookings = new BookingService(calendar);
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+
+    Assert.assertTrue(bookings.book(event));
+    Assert.assertTrue(bookings.cancel(event));
+    Assert.assertFalse(bookings.cancel(event));
+    Assert.assertTrue(bookings.book(event));
+  }
+
+  @Test
+  public void neverDoubleBooksUnderContention() throws Exception {
+    // Many threads race to book overlapping meetings for a small group of people, so most
+    // bookings conflict with each other. Few stripes make different people share locks too.
+    int threads = 8;
+    int bookingsPerThread = 2000;
+    String[] people = new String[12];
+    for (int i = 0; i < people.length; i++) {
+      people[i] = "Booking person " + i;
+    }
+    CalendarIndex calendar = new CalendarIndex();
+    BookingService bookings = new BookingService(calendar, 4);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int thread = 0; thread < threads; thread++) {
+      Random random = new Random(thread);
+      results.add(executor.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() throws InterruptedException {
+          start.await();
+          int booked = 0;
+          for (int i = 0; i < bookingsPerThread; i++) {
+            List<String> attendees = new ArrayList<>(Arrays.asList(people));
+            Collections.shuffle(attendees, random);
+            Event event = new Event("Meeting " + i,
+                TimeRange.fromStartDuration(5 * random.nextInt(280), 5 + 5 * random.nextInt(12)),
+                attendees.subList(0, 1 + random.nextInt(3)));
+            if (bookings.book(event)) {
+              booked++;
+            }
+          }
+          return booked;
+        }
+      }));
+    }
+    start.countDown();
+    int booked = 0;
+    for (Future<Integer> result : results) {
+      booked += result.get();
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    List<Event> events = calendar.events();
+    Assert.assertEquals(booked, events.size());
+    for (String person : people) {
+      List<TimeRange> busyTimes = new ArrayList<>();
+      for (Event event : events) {
+        if (event.getAttendees().contains(person)) {
+          busyTimes.add(event.getWhen());
+        }
+      }
+      Collections.sort(busyTimes, TimeRange.ORDER_BY_START);
+      for (int i = 1; i < busyTimes.size(); i++) {
+        Assert.assertFalse(person + " is double booked",
+            busyTimes.get(i - 1).overlaps(busyTimes.get(i)));
+      }
+    }
+  }
+}
@@ -0,0 +1,153 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_90_MINUTES = 90;
+
+  @Test
+  public void keepsBusyTimesMergedPerAttendee() {
+    // Events  : |----A----|
+    //                 |--A,B--|
+    //                           |--B--|
+    Event event1 = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_90_MINUTES), Arrays.asList(PERSON_A));
+    Event event2 = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B));
+    Event event3 = new Event("Event 3",
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+
+    CalendarIndex index = new CalendarIndex(Arrays.asList(event1, event2, event3));
+
+    Assert.assertEquals(3, index.version());
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_90_MINUTES)),
+        index.busyTimes(PERSON_A));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES)),
+        index.busyTimes(PERSON_B));
+
+    Assert.assertTrue(index.removeEvent(event1));
+    Assert.assertFalse(index.removeEvent(event1));
+
+    Assert.assertEquals(4, index.version());
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES)),
+        index.busyTimes(PERSON_A));
+  }
+
+  @Test
+  public void answersLikeQueryOverTheRemainingEvents() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      List<Event> events = new ArrayList<>(RandomCalendars.events(random, 20, true));
+      CalendarIndex index = new CalendarIndex(events);
+      Collections.shuffle(events, random);
+      List<Event> removed = events.subList(0, events.size() / 3);
+      for (Event event : removed) {
+        index.removeEvent(event);
+      }
+      removed.clear();
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals("round " + round, query.query(events, request),
+          query.query(index, request));
+    }
+  }
+
+  @Test
+  public void addingEventsAtOnceMatchesAddingThemOneByOne() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      List<Event> first = new ArrayList<>(RandomCalendars.events(random, 20, true));
+      List<Event> second = new ArrayList<>(RandomCalendars.events(random, 20, true));
+      CalendarIndex oneByOne = new CalendarIndex();
+      for (Event event : first) {
+        oneByOne.addEvent(event);
+      }
+      for (Event event : second) {
+        oneByOne.addEvent(event);
+      }
+      CalendarIndex atOnce = new CalendarIndex(first);
+      long version = atOnce.version();
+      atOnce.addEvents(second);
+
+      Assert.assertEquals(version + second.size(), atOnce.version());
+      Assert.assertEquals(oneByOne.events(), atOnce.events());
+      for (String person : RandomCalendars.PEOPLE) {
+        Assert.assertEquals("round " + round, oneByOne.busyTimes(person), atOnce.busyTimes(person));
+      }
+    }
+  }
+
+  @Test
+  public void listenerHearsExactlyTheChangesTheSnapshotMissed() throws Exception {
+    CalendarIndex index = new CalendarIndex();
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 2000; i++) {
+        index.addEvent(event);
+      }
+    });
+    writer.start();
+
+    AtomicInteger heard = new AtomicInteger();
+    int seen = index.addListener(changed -> heard.incrementAndGet(), () -> index.events().size());
+    writer.join();
+
+    Assert.assertEquals(2000, seen + heard.get());
+  }
+
+  @Test
+  public void listsEventsInTheOrderTheyWereAdded() {
+    Event event1 = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    Event event2 = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+    CalendarIndex index = new CalendarIndex(Arrays.asList(event1, event2, event1));
+
+    Assert.assertEquals(Arrays.asList(event1, event1, event2), index.events());
+
+    index.removeEvent(event1);
+    Assert.assertEquals(Arrays.asList(event1, event2), index.events());
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DayBitmapEngineTest {
+  @Test
+  public void bitmapFindsSetAndClearMinutesAcrossWords() {
+    DayBitmap bitmap = new DayBitmap();
+    bitmap.add(TimeRange.fromStartEnd(60, 200, false));
+    bitmap.add(TimeRange.fromStartEnd(1400, 1500, false));
+
+    Assert.assertEquals(60, bitmap.nextSetMinute(0));
+    Assert.assertEquals(0, bitmap.nextClearMinute(0));
+    Assert.assertEquals(200, bitmap.nextClearMinute(60));
+    Assert.assertEquals(1400, bitmap.nextSetMinute(200));
+    Assert.assertEquals(DayBitmap.MINUTES, bitmap.nextClearMinute(1400));
+    Assert.assertTrue(bitmap.contains(199));
+    Assert.assertFalse(bitmap.contains(200));
+  }
+
+  @Test
+  public void matchesReferenceOnRandomCalendars() {
+    FindMeetingQuery reference = new FindMeetingQuery(new ReferenceMeetingQuery());
+    FindMeetingQuery bitmap = new FindMeetingQuery(new DayBitmapEngine());
+    Random random = new Random(42);
+
+    for (int round = 0; round < 500; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, false);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals("round " + round, reference.query(events, request),
+          bitmap.query(events, request));
+    }
+  }
+
+  @Test
+  public void matchesSweepLineWithEventsWithoutDuration() {
+    FindMeetingQuery sweepLine = new FindMeetingQuery(new SweepLineEngine());
+    FindMeetingQuery bitmap = new FindMeetingQuery(new DayBitmapEngine());
+    Random random = new Random(7);
+
+    for (int round = 0; round < 500; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, true);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals("round " + round, sweepLine.query(events, request),
+          bitmap.query(events, request));
+    }
+  }
+}
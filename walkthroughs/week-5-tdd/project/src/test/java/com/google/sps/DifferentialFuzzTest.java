@@ -0,0 +1,116 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DifferentialFuzzTest {
+  private static final long SEED = 20191;
+  private static final int ROUNDS = 3000;
+
+  @Test
+  public void enginesMatchReference() {
+    FindMeetingQuery reference = new FindMeetingQuery(new ReferenceMeetingQuery());
+    withEveryEngine(new DifferentialFuzzer(reference::query)).run(SEED, ROUNDS);
+  }
+
+  @Test
+  public void enginesMatchSweepLineWithEmptyEvents() {
+    // The reference predates events without a duration, which split the free time around them.
+    FindMeetingQuery sweepLine = new FindMeetingQuery(new SweepLineEngine());
+    withEveryEngine(new DifferentialFuzzer(sweepLine::query))
+        .withEmptyEvents(true)
+        .run(SEED, ROUNDS);
+  }
+
+  @Test
+  public void shrinksMismatchToMinimalCase() {
+    FindMeetingQuery sweepLine = new FindMeetingQuery(new SweepLineEngine());
+    // Loses the last free time whenever there are two or more.
+    DifferentialFuzzer fuzzer = new DifferentialFuzzer(sweepLine::query)
+        .subject("broken", (events, request) -> {
+          List<TimeRange> times = new ArrayList<>(sweepLine.query(events, request));
+          if (times.size() > 1) {
+            times.remove(times.size() - 1);
+          }
+          return times;
+        });
+
+    try {
+      fuzzer.run(SEED, ROUNDS);
+    } catch (AssertionError e) {
+      // One event of one attendee is all it takes to get two free times.
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("broken disagrees"));
+      String smallestCase = e.getMessage().split("Smallest case:")[1].split("Expected:")[0];
+      Assert.assertEquals(e.getMessage(), 1, smallestCase.split("Range:").length - 1);
+      return;
+    }
+    Assert.fail("The broken engine was not caught.");
+  }
+
+  @Test
+  public void shrinkKeepsFailing() {
+    DifferentialFuzzer.Case original = DifferentialFuzzer.randomCase(SEED, 7, true);
+    while (original.events.size() < 3) {
+      original = DifferentialFuzzer.randomCase(SEED, original.events.size() + 100, true);
+    }
+
+    // Fails while there are at least two events; the attendees do not matter.
+    DifferentialFuzzer.Case minimal =
+        DifferentialFuzzer.shrink(original, c -> c.events.size() >= 2, true);
+
+    Assert.assertEquals(2, minimal.events.size());
+    Assert.assertEquals(1, minimal.duration);
+    Assert.assertEquals(Arrays.asList(), minimal.attendees);
+    for (Event event : minimal.events) {
+      Assert.assertEquals(0, event.getWhen().start());
+      Assert.assertEquals(0, event.getWhen().duration());
+      Assert.assertEquals(0, event.getAttendees().size());
+    }
+  }
+
+  private static DifferentialFuzzer withEveryEngine(DifferentialFuzzer fuzzer) {
+    FindMeetingQuery sweepLine = new FindMeetingQuery(new SweepLineEngine());
+    FindMeetingQuery dayBitmap = new FindMeetingQuery(new DayBitmapEngine());
+    FindMeetingQuery parallel =
+        new FindMeetingQuery(new SweepLineEngine(1, ForkJoinPool.commonPool()));
+    return fuzzer
+        .subject("SweepLineEngine", sweepLine::query)
+        .subject("DayBitmapEngine", dayBitmap::query)
+        .subject("stream",
+            (events, request) -> sweepLine.stream(events, request).collect(Collectors.toList()))
+        .subject("BusyTimeIndex",
+            (events, request) -> sweepLine.query(new BusyTimeIndex(events), request))
+        .subject("CalendarIndex",
+            (events, request) -> sweepLine.query(new CalendarIndex(events), request))
+        .subject("EventStore",
+            (events, request) -> sweepLine.query(EventStore.of(events), request))
+        .subject("parallel SweepLineEngine",
+            (events, request) -> parallel.query(new BusyTimeIndex(events), request))
+        .subject("queryAll",
+            (events, request) -> sweepLine.queryAll(events, Arrays.asList(request)).get(0));
+  }
+}
@@ -0,0 +1,300 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Runs engines side by side with a reference on random calendars and requests, and shrinks the
+ * first calendar on which they disagree to one that cannot be made any smaller.
+ *
+ * <p>The calendars lean towards the places where engines tend to be wrong: ranges that touch, nest
+ * or have no duration, ranges that start at midnight or end at {@link TimeRange#END_OF_DAY}
+ * (inclusive or not) or at the end of {@link TimeRange#WHOLE_DAY}, meetings of no time, of one
+ * minute or of the whole day, and optional attendees that have to be dropped. Every round is
+ * derived from the seed and the round number alone, so a failure can be replayed with
+ * {@link #randomCase}.
+ */
+final class DifferentialFuzzer {
+  static final String[] PEOPLE = {"Person A", "Person B", "Person C", "Person D", "Person E"};
+
+  // Interesting minutes, picked more often than the others.
+  private static final int[] EDGES = {TimeRange.START_OF_DAY, 1, 15, 30, TimeRange.END_OF_DAY - 1,
+      TimeRange.END_OF_DAY, TimeRange.WHOLE_DAY.end()};
+
+  private final Engine reference;
+  private final Map<String, Engine> subjects = new LinkedHashMap<>();
+  private boolean withEmptyEvents;
+
+  /**
+   * Creates a fuzzer that takes the answers of {@code reference} as the right ones.
+   */
+  DifferentialFuzzer(Engine reference) {
+    this.reference = reference;
+  }
+
+  /**
+   * Adds an engine to check against the reference. {@code name} is used in failure messages.
+   */
+  DifferentialFuzzer subject(String name, Engine subject) {
+    subjects.put(name, subject);
+    return this;
+  }
+
+  /**
+   * Sets whether calendars can contain events without a duration.
+   */
+  DifferentialFuzzer withEmptyEvents(boolean withEmptyEvents) {
+    this.withEmptyEvents = withEmptyEvents;
+    return this;
+  }
+
+  /**
+   * Checks every subject against the reference on {@code rounds} random cases.
+   *
+   * @throws AssertionError naming the subject, the seed and round, and the smallest case that still
+   *     shows the difference
+   */
+  void run(long seed, int rounds) {
+    for (int round = 0; round < rounds; round++) {
+      Case original = randomCase(seed, round, withEmptyEvents);
+      for (Map.Entry<String, Engine> subject : subjects.entrySet()) {
+        Predicate<Case> fails = c -> !agrees(subject.getValue(), c);
+        if (fails.test(original)) {
+          Case minimal = shrink(original, fails, withEmptyEvents);
+          throw new AssertionError(String.format(
+              "%s disagrees with the reference (seed %d, round %d).%n"
+                  + "Smallest case: %s%nExpected: %s%nActual:   %s",
+              subject.getKey(), seed, round, minimal, answer(reference, minimal),
+              answer(subject.getValue(), minimal)));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the case of round {@code round} of a run with {@code seed}.
+   */
+  static Case randomCase(long seed, int round, boolean withEmptyEvents) {
+    Random random = new Random(seed * 1_000_003 + round);
+    List<Event> events = new ArrayList<>();
+    int count = random.nextInt(12);
+    for (int i = 0; i < count; i++) {
+      events.add(new Event("Event " + i, randomRange(random, withEmptyEvents),
+          people(random, 3)));
+    }
+
+    long duration;
+    switch (random.nextInt(6)) {
+      case 0:
+        duration = random.nextInt(2);
+        break;
+      case 1:
+        duration = TimeRange.WHOLE_DAY.duration() - random.nextInt(2);
+        break;
+      case 2:
+        duration = TimeRange.WHOLE_DAY.duration() + 1;
+        break;
+      default:
+        duration = 1 + random.nextInt(240);
+    }
+    return new Case(events, people(random, 3), people(random, 3), duration);
+  }
+
+  /**
+   * Returns the smallest case that still fails, found by repeatedly removing events and people and
+   * by making times and the duration shorter, as long as the case keeps failing. Events only lose
+   * their whole duration if {@code withEmptyEvents} is true, so that the smallest case is one that
+   * the fuzzer could have generated.
+   */
+  static Case shrink(Case failing, Predicate<Case> fails, boolean withEmptyEvents) {
+    Case current = failing;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Case candidate : smallerCases(current, withEmptyEvents)) {
+        if (fails.test(candidate)) {
+          current = candidate;
+          changed = true;
+          break;
+        }
+      }
+    }
+    return current;
+  }
+
+  private boolean agrees(Engine subject, Case c) {
+    return Objects.equals(answer(reference, c), answer(subject, c));
+  }
+
+  /**
+   * Returns the answer as a list, or the exception if there was one, so that engines that throw
+   * are reported instead of ending the run.
+   */
+  private static Object answer(Engine engine, Case c) {
+    try {
+      return new ArrayList<>(engine.query(c.events, c.request()));
+    } catch (RuntimeException e) {
+      return e.toString();
+    }
+  }
+
+  /** Returns the cases that are one step smaller than {@code c}, the simplest first. */
+  private static List<Case> smallerCases(Case c, boolean withEmptyEvents) {
+    List<Case> smaller = new ArrayList<>();
+    for (int i = 0; i < c.events.size(); i++) {
+      List<Event> events = new ArrayList<>(c.events);
+      events.remove(i);
+      smaller.add(c.withEvents(events));
+    }
+    for (int i = 0; i < c.attendees.size(); i++) {
+      List<String> attendees = new ArrayList<>(c.attendees);
+      attendees.remove(i);
+      smaller.add(new Case(c.events, attendees, c.optionalAttendees, c.duration));
+    }
+    for (int i = 0; i < c.optionalAttendees.size(); i++) {
+      List<String> optionalAttendees = new ArrayList<>(c.optionalAttendees);
+      optionalAttendees.remove(i);
+      smaller.add(new Case(c.events, c.attendees, optionalAttendees, c.duration));
+    }
+    for (int i = 0; i < c.events.size(); i++) {
+      Event event = c.events.get(i);
+      List<String> attendees = new ArrayList<>(event.getAttendees());
+      for (int j = 0; j < attendees.size(); j++) {
+        List<String> fewer = new ArrayList<>(attendees);
+        fewer.remove(j);
+        smaller.add(c.withEvent(i, new Event(event.getTitle(), event.getWhen(), fewer)));
+      }
+      for (TimeRange when : simplerRanges(event.getWhen(), withEmptyEvents)) {
+        smaller.add(c.withEvent(i, new Event(event.getTitle(), when, attendees)));
+      }
+    }
+    if (c.duration > 1) {
+      smaller.add(new Case(c.events, c.attendees, c.optionalAttendees, c.duration / 2));
+      smaller.add(new Case(c.events, c.attendees, c.optionalAttendees, c.duration - 1));
+    }
+    return smaller;
+  }
+
+  /** Returns ranges that are shorter than {@code when} or start earlier. */
+  private static List<TimeRange> simplerRanges(TimeRange when, boolean withEmptyEvents) {
+    List<TimeRange> simpler = new ArrayList<>();
+    int minDuration = withEmptyEvents ? 0 : 1;
+    if (when.duration() > minDuration) {
+      simpler.add(TimeRange.fromStartDuration(
+          when.start(), Math.max(when.duration() / 2, minDuration)));
+      simpler.add(TimeRange.fromStartDuration(when.start(), when.duration() - 1));
+    }
+    if (when.start() > 0) {
+      simpler.add(TimeRange.fromStartDuration(when.start() / 2, when.duration()));
+      simpler.add(TimeRange.fromStartDuration(when.start() - 1, when.duration()));
+    }
+    return simpler;
+  }
+
+  private static TimeRange randomRange(Random random, boolean withEmptyEvents) {
+    int start = random.nextBoolean()
+        ? EDGES[random.nextInt(EDGES.length)]
+        : random.nextInt(TimeRange.WHOLE_DAY.end() + 1);
+    if (withEmptyEvents && random.nextInt(5) == 0) {
+      return TimeRange.fromStartDuration(start, 0);
+    }
+    if (start == TimeRange.WHOLE_DAY.end()) {
+      start--;
+    }
+    switch (random.nextInt(4)) {
+      case 0:
+        // Until the end of the day, including the last minute.
+        return TimeRange.fromStartEnd(start, TimeRange.END_OF_DAY, true);
+      case 1:
+        // Until the last minute of the day, which stays free.
+        return start < TimeRange.END_OF_DAY
+            ? TimeRange.fromStartEnd(start, TimeRange.END_OF_DAY, false)
+            : TimeRange.fromStartEnd(start, TimeRange.END_OF_DAY, true);
+      default:
+        int maxDuration = TimeRange.WHOLE_DAY.end() - start;
+        return TimeRange.fromStartDuration(start, 1 + random.nextInt(Math.min(maxDuration, 300)));
+    }
+  }
+
+  private static List<String> people(Random random, int oneIn) {
+    List<String> people = new ArrayList<>();
+    for (String person : PEOPLE) {
+      if (random.nextInt(oneIn) == 0) {
+        people.add(person);
+      }
+    }
+    return people;
+  }
+
+  /** Anything that answers requests like {@link FindMeetingQuery#query}. */
+  interface Engine {
+    Collection<TimeRange> query(List<Event> events, MeetingRequest request);
+  }
+
+  /** A calendar together with a request against it. */
+  static final class Case {
+    final List<Event> events;
+    final List<String> attendees;
+    final List<String> optionalAttendees;
+    final long duration;
+
+    Case(List<Event> events, List<String> attendees, List<String> optionalAttendees,
+        long duration) {
+      this.events = events;
+      this.attendees = attendees;
+      this.optionalAttendees = optionalAttendees;
+      this.duration = duration;
+    }
+
+    /** Returns a new request, since engines must not be able to share state through it. */
+    MeetingRequest request() {
+      MeetingRequest request = new MeetingRequest(attendees, duration);
+      for (String person : optionalAttendees) {
+        request.addOptionalAttendee(person);
+      }
+      return request;
+    }
+
+    Case withEvents(List<Event> events) {
+      return new Case(events, attendees, optionalAttendees, duration);
+    }
+
+    Case withEvent(int index, Event event) {
+      List<Event> events = new ArrayList<>(this.events);
+      events.set(index, event);
+      return withEvents(events);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      for (Event event : events) {
+        builder.append(String.format("%n  %s %s", event.getWhen(),
+            Arrays.toString(event.getAttendees().toArray())));
+      }
+      return String.format("%s%n  request: %s optional %s for %d minutes", builder, attendees,
+          optionalAttendees, duration);
+    }
+  }
+}
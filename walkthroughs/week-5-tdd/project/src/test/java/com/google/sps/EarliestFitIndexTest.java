@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EarliestFitIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void addingAndRemovingOverlappingEvents() {
+    // Events  : |-------A-------|
+    //                 |---A---|
+    // Day     : |-----------------------------|
+    Event wholeMorning = new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    Event breakfast = new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    EarliestFitIndex index = new EarliestFitIndex(Arrays.asList(wholeMorning, breakfast), request);
+    Assert.assertEquals(Optional.of(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR)),
+        index.earliestFit());
+
+    // The breakfast still keeps 8:00 to 8:30 busy.
+    index.removeEvent(wholeMorning);
+    Assert.assertEquals(
+        Optional.of(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, DURATION_1_HOUR)),
+        index.earliestFit());
+
+    index.addEvent(new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+    index.addEvent(new Event("Event 4", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    Assert.assertEquals(Optional.empty(), index.earliestFit());
+  }
+
+  @Test
+  public void meetingWithoutDurationSkipsBusyMidnight() {
+    Event night = new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        Arrays.asList(PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 0);
+
+    EarliestFitIndex index = new EarliestFitIndex(Arrays.asList(night), request);
+
+    Assert.assertEquals(Optional.of(TimeRange.fromStartDuration(TIME_0800AM, 0)),
+        index.earliestFit());
+    index.addEvent(new Event("Event 2",
+        TimeRange.fromStartEnd(TIME_0800AM, TimeRange.END_OF_DAY, true), Arrays.asList(PERSON_A)));
+    Assert.assertEquals(Optional.empty(), index.earliestFit());
+  }
+
+  @Test
+  public void matchesFirstOptionOfQueryOnRandomCalendars() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    Random random = new Random(42);
+
+    for (int round = 0; round < 500; round++) {
+      List<Event> events = new ArrayList<>(RandomCalendars.events(random, 20, true));
+      MeetingRequest request = RandomCalendars.request(random);
+      if (round % 5 == 0) {
+        request = withoutDuration(request);
+      }
+
+      EarliestFitIndex index = new EarliestFitIndex(Collections.<Event>emptyList(), request);
+      for (Event event : events) {
+        index.addEvent(event);
+      }
+      // Removing events must leave the index as if they had never been added.
+      Collections.shuffle(events, random);
+      List<Event> removed = events.subList(0, events.size() / 2);
+      for (Event event : removed) {
+        index.removeEvent(event);
+      }
+      removed.clear();
+
+      Assert.assertEquals("round " + round, firstOption(query.query(events, request), request),
+          index.earliestFit());
+    }
+  }
+
+  private static MeetingRequest withoutDuration(MeetingRequest request) {
+    MeetingRequest copy = new MeetingRequest(request.getAttendees(), 0);
+    for (String person : request.getOptionalAttendees()) {
+      copy.addOptionalAttendee(person);
+    }
+    return copy;
+  }
+
+  private static Optional<TimeRange> firstOption(
+      Collection<TimeRange> options, MeetingRequest request) {
+    Iterator<TimeRange> iterator = options.iterator();
+    if (!iterator.hasNext()) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        TimeRange.fromStartDuration(iterator.next().start(), (int) request.getDuration()));
+  }
+}
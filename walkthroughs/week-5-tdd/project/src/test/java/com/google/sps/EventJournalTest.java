@@ -0,0 +1,191 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventJournalTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+      Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event EVENT_2 = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void replaysAddsAndRemovesAfterReopening() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (EventJournal journal = EventJournal.open(directory)) {
+      journal.recordAdd(EVENT_1);
+      journal.recordAdd(EVENT_2);
+      journal.recordAdd(EVENT_1);
+      journal.recordRemove(EVENT_2);
+    }
+
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_1), journal.load());
+      Assert.assertEquals(4, journal.recordsSinceCompaction());
+    }
+  }
+
+  @Test
+  public void journalWhoseEventsWereAllRemovedIsNotNew() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertTrue(journal.isNew());
+      journal.recordAdd(EVENT_1);
+      journal.recordRemove(EVENT_1);
+    }
+
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertFalse(journal.isNew());
+      Assert.assertEquals(Collections.emptyList(), journal.load());
+      journal.compact();
+    }
+
+    // After the compaction only an empty snapshot and an empty journal are left.
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertFalse(journal.isNew());
+      Assert.assertEquals(Collections.emptyList(), journal.load());
+    }
+  }
+
+  @Test
+  public void compactionKeepsTheEvents() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    Random random = new Random(42);
+    List<Event> events = new ArrayList<>(RandomCalendars.events(random, 200, true));
+    try (EventJournal journal = EventJournal.open(directory)) {
+      for (Event event : events) {
+        journal.recordAdd(event);
+      }
+      journal.compact();
+      Assert.assertEquals(0, journal.recordsSinceCompaction());
+
+      // Changes after the compaction go to the journal again.
+      journal.recordAdd(EVENT_2);
+      journal.recordRemove(events.get(0));
+    }
+
+    List<Event> expected = new ArrayList<>(events);
+    expected.remove(0);
+    expected.add(EVENT_2);
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertEquals(sorted(expected), sorted(journal.load()));
+    }
+  }
+
+  @Test
+  public void compactsOnlyOnceEnoughRecordsAreJournaled() throws IOException {
+    try (EventJournal journal = EventJournal.open(folder.getRoot().toPath())) {
+      journal.recordAdd(EVENT_1);
+      Assert.assertFalse(journal.compactIfAtLeast(2));
+      journal.recordAdd(EVENT_2);
+      Assert.assertTrue(journal.compactIfAtLeast(2));
+      Assert.assertFalse(journal.compactIfAtLeast(2));
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), journal.load());
+    }
+  }
+
+  @Test
+  public void crashAfterTheSnapshotWasMovedDoesNotReplayTheJournalTwice() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    Path file = directory.resolve(EventJournal.JOURNAL_FILE);
+    Path oldJournal = directory.resolve("journal.old");
+    try (EventJournal journal = EventJournal.open(directory)) {
+      journal.recordAdd(EVENT_1);
+      journal.recordAdd(EVENT_2);
+      journal.recordAdd(EVENT_1);
+      journal.recordRemove(EVENT_2);
+      journal.sync();
+      Files.copy(file, oldJournal);
+      journal.compact();
+    }
+    // Put the journal back as it was before compaction, as if the process stopped right after the
+    // new snapshot was moved into place.
+    Files.copy(oldJournal, file, StandardCopyOption.REPLACE_EXISTING);
+    Files.delete(oldJournal);
+
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_1), journal.load());
+      Assert.assertEquals(0, journal.recordsSinceCompaction());
+      journal.recordAdd(EVENT_2);
+    }
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_1, EVENT_2), journal.load());
+    }
+  }
+
+  @Test
+  public void dropsARecordThatWasOnlyPartlyWritten() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (EventJournal journal = EventJournal.open(directory)) {
+      journal.recordAdd(EVENT_1);
+      journal.recordAdd(EVENT_2);
+    }
+    // Cut the last record in half, as a crash in the middle of a write would.
+    Path file = directory.resolve(EventJournal.JOURNAL_FILE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 5);
+    }
+
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1), journal.load());
+      journal.recordAdd(EVENT_2);
+    }
+    try (EventJournal journal = EventJournal.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), journal.load());
+    }
+  }
+
+  /** Returns the events as sorted strings, so that lists can be compared whatever their order. */
+  private static List<String> sorted(List<Event> events) {
+    List<String> strings = new ArrayList<>();
+    for (Event event : events) {
+      strings.add(event.getTitle() + " " + event.getWhen() + " "
+          + new TreeSet<>(event.getAttendees()));
+    }
+    Collections.sort(strings);
+    return strings;
+  }
+}
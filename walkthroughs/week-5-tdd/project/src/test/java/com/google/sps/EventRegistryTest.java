@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventRegistryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void givesEqualEventsTheSameId() {
+    EventRegistry registry = new EventRegistry();
+    Event event = new Event("Team Sync",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    Event equal = new Event(new String("Team Sync"),
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    Event later = new Event("Team Sync",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+
+    Assert.assertEquals(-1, registry.lookup(event));
+    Assert.assertEquals(0, registry.register(event));
+    Assert.assertEquals(0, registry.register(equal));
+    Assert.assertEquals(1, registry.register(later));
+    Assert.assertEquals(0, registry.lookup(equal));
+    Assert.assertEquals(later, registry.event(1));
+    Assert.assertEquals(2, registry.size());
+  }
+
+  @Test
+  public void sharesTitlesAndAttendees() {
+    EventRegistry registry = new EventRegistry();
+    Event first = registry.intern(new Event(new String("Team Sync"),
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B)));
+    Event second = registry.intern(new Event(new String("Team Sync"),
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_B, PERSON_A)));
+
+    Assert.assertSame(first.getTitle(), second.getTitle());
+    Assert.assertSame(first.attendeeIds(), second.attendeeIds());
+    Assert.assertSame(first.attendeeNames(), second.attendeeNames());
+    Assert.assertEquals(1, registry.titleCount());
+    Assert.assertEquals(1, registry.attendeeSetCount());
+  }
+
+  @Test
+  public void registerAllDropsDuplicatesInOrder() {
+    EventRegistry registry = new EventRegistry();
+    Event a = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A));
+    Event b = new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B));
+    registry.register(b);
+
+    List<Event> distinct = registry.registerAll(Arrays.asList(a, b, a, b));
+
+    Assert.assertEquals(Arrays.asList(a, b), distinct);
+    Assert.assertEquals(2, registry.size());
+  }
+
+  @Test
+  public void repeatedTitlesHaveDifferentHashCodes() {
+    // Like the many "Hiring Review"s in {@link Events}, these only differ in time and attendees.
+    List<Event> events = new ArrayList<>();
+    for (int start = 0; start < 100; start++) {
+      events.add(new Event("Hiring Review", TimeRange.fromStartDuration(start, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_A)));
+      events.add(new Event("Hiring Review", TimeRange.fromStartDuration(start, DURATION_30_MINUTES),
+          Arrays.asList(PERSON_B)));
+    }
+
+    Set<Integer> hashCodes = new HashSet<>();
+    for (Event event : events) {
+      hashCodes.add(event.hashCode());
+    }
+    Assert.assertEquals(events.size(), hashCodes.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownIds() {
+    new EventRegistry().event(0);
+  }
+}
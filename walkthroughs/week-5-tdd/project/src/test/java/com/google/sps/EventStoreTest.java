@@ -0,0 +1,89 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void readsBackEveryColumn() {
+    Event event1 = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_B, PERSON_A));
+    Event event2 = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B));
+    EventStore store = EventStore.of(Arrays.asList(event1, event2));
+
+    Assert.assertEquals(2, store.size());
+    Assert.assertEquals(TIME_0900AM, store.start(1));
+    Assert.assertEquals(DURATION_30_MINUTES, store.duration(1));
+    Assert.assertEquals("Event 1", store.title(1));
+    Assert.assertEquals(2, store.attendeeCount(0));
+    Assert.assertEquals(event1, store.event(0));
+    Assert.assertEquals(event2, store.event(1));
+  }
+
+  @Test
+  public void scansTheRowsOfOneAttendee() {
+    EventStore store = new EventStore(0);
+    for (int i = 0; i < 100; i++) {
+      store.add(new Event("Event " + i, TimeRange.fromStartDuration(i, 1),
+          Arrays.asList(i % 3 == 0 ? PERSON_A : PERSON_B)));
+    }
+
+    List<Integer> rows = new ArrayList<>();
+    store.forEachRowOf(PERSON_A, rows::add);
+
+    List<Integer> expected = new ArrayList<>();
+    for (int row = 99; row >= 0; row--) {
+      if (row % 3 == 0) {
+        expected.add(row);
+      }
+    }
+    Assert.assertEquals(expected, rows);
+  }
+
+  @Test
+  public void answersLikeQueryOverTheEvents() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, true);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals("round " + round, query.query(events, request),
+          query.query(EventStore.of(events), request));
+    }
+  }
+}
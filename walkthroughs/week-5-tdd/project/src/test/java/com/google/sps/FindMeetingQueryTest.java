@@ -18,7 +18,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -430,4 +433,66 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void queryAllAnswersEveryRequestInOrder() {
+    Random random = new Random(42);
+    Collection<Event> events = RandomCalendars.events(random, 20, true);
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      requests.add(RandomCalendars.request(random));
+    }
+    requests.add(new MeetingRequest(NO_ATTENDEES, DURATION_1_HOUR));
+
+    List<Collection<TimeRange>> expected = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expected.add(query.query(events, request));
+    }
+
+    List<Collection<TimeRange>> actual = query.queryAll(events, requests);
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(expected, query.queryAll(new CalendarIndex(events), requests));
+  }
+
+  @Test
+  public void streamGivesTheSameTimesInOrder() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, true);
+      MeetingRequest request = RandomCalendars.request(random);
+      List<TimeRange> expected = new ArrayList<>(query.query(events, request));
+
+      Assert.assertEquals("round " + round, expected,
+          query.stream(events, request).collect(Collectors.toList()));
+      Assert.assertEquals("round " + round, expected.subList(0, Math.min(2, expected.size())),
+          query.stream(new BusyTimeIndex(events), request).limit(2).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void iteratorDropsOptionalAttendeesOnlyWhenNeeded() {
+    // Optional attendee B is busy all day, so the iterator falls back to A's free times.
+    //
+    // Events  : |--A--|
+    //           |---------------B-----------------|
+    // Day     : |---------------------------------|
+    // Options :       |-------------1-------------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+
+    Iterator<TimeRange> times = query.iterator(events, request);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        times.next());
+    Assert.assertEquals(
+        TimeRange.fromStartEnd(TIME_0800AM + DURATION_1_HOUR, TimeRange.END_OF_DAY, true),
+        times.next());
+    Assert.assertFalse(times.hasNext());
+  }
 }
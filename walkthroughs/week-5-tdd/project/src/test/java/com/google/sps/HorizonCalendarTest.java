@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class HorizonCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int DAY = HorizonRange.MINUTES_PER_DAY;
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000PM = TimeRange.getTimeInMinutes(22, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+  private static final int DURATION_2_HOURS = 2 * 60;
+
+  @Test
+  public void freeTimesContinueAcrossMidnight() {
+    // A works from 9:00 to 22:00 every day, and B has a night shift from day 1 22:00 to day 2 9:00.
+    //
+    // Events  :      |--A--|        |--A--|        |--A--|
+    //                                     |--B--|
+    // Days    : |------0------|------1------|------2------|
+    // Options : |-1-|      |-----2----|                |-3-|
+    HorizonCalendar calendar = new HorizonCalendar();
+    for (int day = 0; day < 3; day++) {
+      calendar.addEvent(day, new Event("Work",
+          TimeRange.fromStartEnd(TIME_0900AM, TIME_1000PM, false), Arrays.asList(PERSON_A)));
+    }
+    calendar.addEvent(HorizonRange.fromStartEnd(DAY + TIME_1000PM, 2 * DAY + TIME_0900AM),
+        Arrays.asList(PERSON_B));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_2_HOURS);
+    List<HorizonRange> expected = Arrays.asList(
+        HorizonRange.fromStartEnd(0, TIME_0900AM),
+        HorizonRange.fromStartEnd(TIME_1000PM, DAY + TIME_0900AM),
+        HorizonRange.fromStartEnd(2 * DAY + TIME_1000PM, 3 * DAY));
+
+    Assert.assertEquals(expected, calendar.query(request, HorizonRange.days(0, 2)));
+  }
+
+  @Test
+  public void onlyLooksInsideTheWindow() {
+    HorizonCalendar calendar = new HorizonCalendar();
+    calendar.addEvent(HorizonRange.fromStartEnd(0, 10 * DAY), Arrays.asList(PERSON_A));
+    calendar.addEvent(HorizonRange.fromStartDuration(12 * DAY + TIME_0900AM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    List<HorizonRange> expected = Arrays.asList(
+        HorizonRange.fromStartEnd(10 * DAY, 12 * DAY + TIME_0900AM),
+        HorizonRange.fromStartEnd(12 * DAY + TIME_0900AM + DURATION_1_HOUR, 14 * DAY));
+
+    Assert.assertEquals(expected, calendar.query(request, HorizonRange.days(9, 13)));
+  }
+
+  @Test
+  public void swappedStartAndDurationHashDifferently() {
+    // XOR-ing start and duration gave every range the same hash as its mirror image.
+    HorizonRange range = HorizonRange.fromStartDuration(DAY, DURATION_1_HOUR);
+    HorizonRange mirror = HorizonRange.fromStartDuration(DURATION_1_HOUR, DAY);
+
+    Assert.assertNotEquals(range.hashCode(), mirror.hashCode());
+    Assert.assertEquals(range.hashCode(),
+        HorizonRange.fromStartEnd(DAY, DAY + DURATION_1_HOUR).hashCode());
+  }
+
+  @Test
+  public void singleDayWindowMatchesQuery() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, true);
+      MeetingRequest request = RandomCalendars.request(random);
+      HorizonCalendar calendar = new HorizonCalendar(90);
+      for (Event event : events) {
+        calendar.addEvent(5, event);
+      }
+
+      List<HorizonRange> expected = new ArrayList<>();
+      for (TimeRange time : query.query(events, request)) {
+        expected.add(HorizonRange.onDay(5, time));
+      }
+
+      Assert.assertEquals("round " + round, expected,
+          calendar.query(request, HorizonRange.days(5, 5)));
+    }
+  }
+
+  @Test
+  public void recurringEventsMatchTheirOccurrences() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 200; round++) {
+      HorizonCalendar recurring = new HorizonCalendar();
+      HorizonCalendar materialized = new HorizonCalendar();
+      for (int i = 0; i < 4; i++) {
+        int firstDay = random.nextInt(10);
+        TimeRange when = TimeRange.fromStartDuration(
+            15 * random.nextInt(96), 15 * random.nextInt(8));
+        List<String> attendees = Arrays.asList(RandomCalendars.PEOPLE[random.nextInt(3)]);
+        RecurringEvent event = (random.nextBoolean()
+            ? RecurringEvent.daily("Series " + i, firstDay, when, attendees)
+            : RecurringEvent.weekly("Series " + i, firstDay, when, attendees))
+            .times(1 + random.nextInt(10));
+
+        recurring.addRecurringEvent(event);
+        Iterator<HorizonRange> occurrences = event.occurrences(HorizonRange.days(0, 100));
+        while (occurrences.hasNext()) {
+          materialized.addEvent(occurrences.next(), attendees);
+        }
+      }
+
+      MeetingRequest request = RandomCalendars.request(random);
+      int firstDay = random.nextInt(20);
+      HorizonRange window = HorizonRange.days(firstDay, firstDay + random.nextInt(5));
+
+      Assert.assertEquals("round " + round, materialized.query(request, window),
+          recurring.query(request, window));
+    }
+  }
+}
@@ -0,0 +1,64 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LogHistogramTest {
+  @Test
+  public void emptyHistogram() {
+    Map<String, Number> snapshot = new LogHistogram().snapshot();
+
+    Assert.assertEquals(0L, snapshot.get("count"));
+    Assert.assertEquals(0L, snapshot.get("p99"));
+  }
+
+  @Test
+  public void percentilesAreUpperBoundsOfTheirBucket() {
+    LogHistogram histogram = new LogHistogram();
+    for (int value = 1; value <= 100; value++) {
+      histogram.record(value);
+    }
+
+    Map<String, Number> snapshot = histogram.snapshot();
+    Assert.assertEquals(100L, snapshot.get("count"));
+    Assert.assertEquals(5050L, snapshot.get("sum"));
+    Assert.assertEquals(50.5, snapshot.get("mean"));
+    Assert.assertEquals(100L, snapshot.get("max"));
+    // 50 lies in the bucket from 32 to 63, and 90 and 99 in the one from 64 to 127.
+    Assert.assertEquals(63L, snapshot.get("p50"));
+    Assert.assertEquals(100L, snapshot.get("p90"));
+    Assert.assertEquals(100L, snapshot.get("p99"));
+  }
+
+  @Test
+  public void clearForgetsValues() {
+    LogHistogram histogram = new LogHistogram();
+    histogram.record(7);
+    histogram.record(0);
+    Assert.assertEquals(2, histogram.count());
+
+    histogram.clear();
+
+    Assert.assertEquals(0, histogram.count());
+    Assert.assertEquals(0L, histogram.snapshot().get("max"));
+  }
+}
@@ -0,0 +1,171 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MaxOptionalAttendeesQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final MaxOptionalAttendeesQuery query = new MaxOptionalAttendeesQuery();
+
+  @Test
+  public void picksTheTimeThatFitsTheMostOptionalAttendees() {
+    // No time works for all optional attendees, but 9:00 to 10:00 works for both B and C.
+    //
+    // Events  : |-----A-----|           |-------A-------|
+    // Optional:               |--D--|
+    //           |--------------B------|
+    //           |-------------C-------|
+    //                                 |------D-----------|
+    // Day     : |--------------------------------------|
+    // Options :             |----1----|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_B, PERSON_C)),
+        new Event("Event 4", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_D)),
+        new Event("Event 5", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    List<MeetingSlot> expected = Arrays.asList(
+        new MeetingSlot(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), 2));
+
+    Assert.assertEquals(expected, query.query(events, request));
+  }
+
+  @Test
+  public void mandatoryAttendeesAreNotCountedAsOptional() {
+    // A is both mandatory and optional, and B cannot come at all, so no optional attendee can.
+    // {@code addOptionalAttendee} skips mandatory attendees, but the servlets read requests with
+    // Gson, which fills the fields directly.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new Gson().fromJson("{\"attendees\": [\"" + PERSON_A + "\"], "
+        + "\"optional_attendees\": [\"" + PERSON_A + "\", \"" + PERSON_B + "\"], "
+        + "\"duration\": " + DURATION_60_MINUTES + "}", MeetingRequest.class);
+
+    List<MeetingSlot> expected = Arrays.asList(
+        new MeetingSlot(TimeRange.fromStartEnd(TIME_0800AM, TimeRange.END_OF_DAY, true), 0));
+
+    Assert.assertEquals(expected, query.query(events, request));
+  }
+
+  @Test
+  public void matchesCheckingEveryStartOnRandomCalendars() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, true);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      List<MeetingSlot> slots = query.query(events, request);
+
+      // Collect the best starts one minute at a time.
+      int duration = (int) request.getDuration();
+      int best = -1;
+      TreeSet<Integer> bestStarts = new TreeSet<>();
+      for (int start = 0; start + duration <= TimeRange.WHOLE_DAY.end(); start++) {
+        TimeRange meeting = TimeRange.fromStartDuration(start, duration);
+        if (!canAttend(request.getAttendees(), meeting, events)) {
+          continue;
+        }
+        int available = 0;
+        for (String person : request.getOptionalAttendees()) {
+          if (canAttend(Arrays.asList(person), meeting, events)) {
+            available++;
+          }
+        }
+        if (available > best) {
+          best = available;
+          bestStarts.clear();
+        }
+        if (available == best) {
+          bestStarts.add(start);
+        }
+      }
+      if (best == 0 && request.getAttendees().isEmpty()
+          && !request.getOptionalAttendees().isEmpty()) {
+        bestStarts.clear();
+      }
+
+      TreeSet<Integer> actualStarts = new TreeSet<>();
+      for (MeetingSlot slot : slots) {
+        Assert.assertEquals("round " + round, best, slot.getAvailableAttendees());
+        for (int start = slot.getWhen().start(); start + duration <= slot.getWhen().end();
+            start++) {
+          actualStarts.add(start);
+        }
+      }
+      Assert.assertEquals("round " + round, bestStarts, actualStarts);
+    }
+  }
+
+  /**
+   * Returns true if none of {@code people} has an event that overlaps {@code meeting}, or that has
+   * no duration and falls strictly inside it.
+   */
+  private static boolean canAttend(
+      Collection<String> people, TimeRange meeting, Collection<Event> events) {
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      boolean conflicts = when.duration() > 0
+          ? when.overlaps(meeting)
+          : when.start() > meeting.start() && when.start() < meeting.end();
+      if (!conflicts) {
+        continue;
+      }
+      for (String person : people) {
+        if (event.getAttendees().contains(person)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
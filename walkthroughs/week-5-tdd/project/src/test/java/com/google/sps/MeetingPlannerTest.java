@@ -0,0 +1,189 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingPlannerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1030AM = TimeRange.getTimeInMinutes(10, 30);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void mostConstrainedMeetingIsPlacedFirst() {
+    // A is free from 9:00 to 10:30 and from 11:00 to 12:00, and B only from 11:00 to 12:00. Placed
+    // in the order asked, A's meeting would take the shorter free time and leave none for A and B.
+    //
+    // Events  : |--A--|     |--A--|     |--A--|
+    //           |--------B--------|     |--B--|
+    // Day     : |-----------------------------|
+    // Options :       |--1--|     |--2--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1030AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 4", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1100AM, false),
+            Arrays.asList(PERSON_B)));
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR));
+
+    MeetingPlan plan = new MeetingPlanner().plan(events, requests);
+
+    Assert.assertEquals(Optional.of(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR)),
+        plan.placement(0));
+    Assert.assertEquals(Optional.of(TimeRange.fromStartDuration(TIME_1100AM, DURATION_1_HOUR)),
+        plan.placement(1));
+    Assert.assertEquals(Arrays.asList(), plan.unplaced());
+    Assert.assertEquals(2, plan.events().size());
+  }
+
+  @Test
+  public void reportsMeetingsThatDoNotFit() {
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+        Arrays.asList(PERSON_A)));
+    // A is free for 15 hours, so the two long meetings fill the day and the short one does not fit.
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), 8 * DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList(PERSON_A), 7 * DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList(PERSON_A), 2 * DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList(PERSON_B), TimeRange.WHOLE_DAY.duration() + 1));
+
+    MeetingPlan plan = new MeetingPlanner().plan(events, requests);
+
+    Assert.assertEquals(Arrays.asList(2, 3), plan.unplaced());
+    Assert.assertEquals(Optional.of(TimeRange.fromStartDuration(TIME_0900AM, 8 * DURATION_1_HOUR)),
+        plan.placement(0));
+    Assert.assertEquals(
+        Optional.of(TimeRange.fromStartEnd(TIME_0900AM + 8 * DURATION_1_HOUR, TimeRange.END_OF_DAY,
+            true)),
+        plan.placement(1));
+    Assert.assertFalse(plan.placement(2).isPresent());
+    Assert.assertTrue(plan.planningNanos() > 0);
+  }
+
+  @Test
+  public void keepsOptionalAttendeesOnlyWhenTheyAreFree() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    MeetingPlan plan = new MeetingPlanner().plan(events, Arrays.asList(request));
+
+    Assert.assertEquals(1, plan.events().size());
+    Assert.assertEquals(
+        new Event("Meeting 0", TimeRange.fromStartDuration(0, DURATION_1_HOUR),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        plan.events().get(0));
+  }
+
+  @Test
+  public void looksAtEachAffectedMeetingOnceAfterAPlacement() {
+    // All three meetings share all three people. Every meeting is looked at once at the start,
+    // then each placement looks at the meetings that are left once, not once per shared person.
+    List<String> people = Arrays.asList(PERSON_A, PERSON_B, PERSON_C);
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(people, DURATION_1_HOUR),
+        new MeetingRequest(people, DURATION_1_HOUR),
+        new MeetingRequest(people, DURATION_1_HOUR));
+    SchedulerMetrics metrics = SchedulerMetrics.shared();
+    metrics.clear();
+    metrics.setEnabled(true);
+    try {
+      MeetingPlan plan = new MeetingPlanner().plan(new ArrayList<>(), requests);
+
+      Assert.assertEquals(3, plan.events().size());
+      Assert.assertEquals(3 + 2 + 1, metrics.count(SchedulerMetrics.Phase.QUERY));
+    } finally {
+      metrics.setEnabled(false);
+      metrics.clear();
+    }
+  }
+
+  @Test
+  public void placedMeetingsNeverConflictOnRandomCalendars() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 200; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 10, true);
+      List<MeetingRequest> requests = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        requests.add(RandomCalendars.request(random));
+      }
+
+      MeetingPlan plan = new MeetingPlanner().plan(events, requests);
+
+      List<Event> all = new ArrayList<>(events);
+      for (Event meeting : plan.events()) {
+        Assert.assertTrue("round " + round,
+            meeting.getAttendees().containsAll(requests.get(index(meeting)).getAttendees()));
+        for (Event other : all) {
+          if (conflicts(meeting.getWhen(), other.getWhen())) {
+            for (String person : meeting.getAttendees()) {
+              Assert.assertFalse("round " + round + ": " + meeting.getWhen() + " and "
+                  + other.getWhen(),
+                  other.getAttendees().contains(person));
+            }
+          }
+        }
+        all.add(meeting);
+      }
+      Assert.assertEquals("round " + round, requests.size(),
+          plan.events().size() + plan.unplaced().size());
+      for (int index : plan.unplaced()) {
+        Assert.assertFalse("round " + round, plan.placement(index).isPresent());
+      }
+    }
+  }
+
+  /**
+   * Returns true if {@code other} keeps the people of {@code meeting} busy. Like in
+   * {@link FindMeetingQuery#query}, a meeting can start or end at an event without a duration, but
+   * not span it.
+   */
+  private static boolean conflicts(TimeRange meeting, TimeRange other) {
+    return other.duration() == 0
+        ? other.start() > meeting.start() && other.start() < meeting.end()
+        : other.overlaps(meeting);
+  }
+
+  private static int index(Event meeting) {
+    return Integer.parseInt(meeting.getTitle().substring("Meeting ".length()));
+  }
+}
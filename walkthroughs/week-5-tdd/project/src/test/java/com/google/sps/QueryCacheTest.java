@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void reusesAnswersForTheSameAttendeesInAnyOrder() {
+    CalendarIndex calendar = new CalendarIndex(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A))));
+    QueryCache cache = new QueryCache(calendar, 10);
+
+    Collection<TimeRange> first =
+        cache.query(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+    Collection<TimeRange> second =
+        cache.query(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, cache.hits());
+    Assert.assertEquals(1, cache.misses());
+  }
+
+  @Test
+  public void onlyDropsAnswersWhoseAttendeesChanged() {
+    CalendarIndex calendar = new CalendarIndex();
+    QueryCache cache = new QueryCache(calendar, 10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    cache.query(request);
+
+    // C is not part of the request, so the answer is still valid.
+    calendar.addEvent(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_C)));
+    cache.query(request);
+    Assert.assertEquals(1, cache.hits());
+
+    // B is an optional attendee, so the answer has to be computed again.
+    calendar.addEvent(new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B)));
+    Collection<TimeRange> answer = cache.query(request);
+    Assert.assertEquals(1, cache.hits());
+    Assert.assertEquals(2, cache.misses());
+
+    Collection<TimeRange> expected = new FindMeetingQuery().query(calendar, request);
+    Assert.assertEquals(expected, answer);
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsedAnswer() {
+    QueryCache cache = new QueryCache(new CalendarIndex(), 2);
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest requestC = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    cache.query(requestA);
+    cache.query(requestB);
+    cache.query(requestA);
+    cache.query(requestC);
+    cache.query(requestA);
+    cache.query(requestB);
+
+    // A stayed in the cache because it was used, and B was evicted to make room for C.
+    Assert.assertEquals(2, cache.hits());
+    Assert.assertEquals(4, cache.misses());
+    Assert.assertEquals(2, cache.size());
+  }
+}
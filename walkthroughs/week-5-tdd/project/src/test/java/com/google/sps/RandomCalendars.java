@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates small random calendars and meeting requests for comparing engines against each other.
+ * Events are on a 15 minute grid so that they touch and nest often.
+ */
+final class RandomCalendars {
+  static final String[] PEOPLE = {"Person A", "Person B", "Person C", "Person D", "Person E",
+      "Person F"};
+
+  private RandomCalendars() {}
+
+  /**
+   * Returns up to {@code maxEvents} random events. If {@code withEmptyEvents} is true, some of the
+   * events have no duration.
+   */
+  static Collection<Event> events(Random random, int maxEvents, boolean withEmptyEvents) {
+    int count = random.nextInt(maxEvents + 1);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int start = random.nextInt(96) * 15;
+      int duration = (withEmptyEvents && random.nextInt(5) == 0) ? 0 : (1 + random.nextInt(16)) * 15;
+      int end = Math.min(start + duration, TimeRange.WHOLE_DAY.end());
+      events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false),
+          people(random, 4)));
+    }
+    return events;
+  }
+
+  /** Returns a random request with random mandatory and optional attendees. */
+  static MeetingRequest request(Random random) {
+    MeetingRequest request = new MeetingRequest(people(random, 3), 1 + random.nextInt(180));
+    for (String person : people(random, 3)) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+
+  /** Returns each of {@link #PEOPLE} with a chance of one in {@code oneIn}. */
+  private static List<String> people(Random random, int oneIn) {
+    List<String> people = new ArrayList<>();
+    for (String person : PEOPLE) {
+      if (random.nextInt(oneIn) == 0) {
+        people.add(person);
+      }
+    }
+    return people;
+  }
+}
@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int DAY = HorizonRange.MINUTES_PER_DAY;
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int DURATION_15_MINUTES = 15;
+
+  private static final TimeRange STAND_UP =
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_15_MINUTES);
+
+  @Test
+  public void onlyOccurrencesInsideTheWindow() {
+    RecurringEvent standUp = RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A));
+
+    List<HorizonRange> expected = Arrays.asList(
+        HorizonRange.onDay(10, STAND_UP),
+        HorizonRange.onDay(11, STAND_UP),
+        HorizonRange.onDay(12, STAND_UP));
+
+    Assert.assertEquals(expected, toList(standUp.occurrences(HorizonRange.days(10, 12))));
+  }
+
+  @Test
+  public void occurrenceOverlappingTheStartOfTheWindow() {
+    RecurringEvent standUp = RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A));
+    HorizonRange window =
+        HorizonRange.fromStartEnd(3 * DAY + TIME_0900AM + 5, 3 * DAY + TIME_0900AM + 10);
+
+    Assert.assertEquals(Arrays.asList(HorizonRange.onDay(3, STAND_UP)),
+        toList(standUp.occurrences(window)));
+  }
+
+  @Test
+  public void occurrenceEndingAtTheStartOfTheWindowIsLeftOut() {
+    RecurringEvent standUp = RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A));
+    HorizonRange window = HorizonRange.fromStartEnd(
+        3 * DAY + TIME_0900AM + DURATION_15_MINUTES, 3 * DAY + TIME_0900AM + 2 * DAY);
+
+    Assert.assertEquals(Arrays.asList(HorizonRange.onDay(4, STAND_UP)),
+        toList(standUp.occurrences(window)));
+  }
+
+  @Test
+  public void nothingBeforeTheFirstOccurrence() {
+    RecurringEvent oneOnOne = RecurringEvent.weekly("1:1", 14, STAND_UP, Arrays.asList(PERSON_A));
+
+    Assert.assertEquals(Arrays.asList(), toList(oneOnOne.occurrences(HorizonRange.days(0, 13))));
+    Assert.assertEquals(Arrays.asList(HorizonRange.onDay(14, STAND_UP),
+        HorizonRange.onDay(21, STAND_UP)),
+        toList(oneOnOne.occurrences(HorizonRange.days(0, 27))));
+  }
+
+  @Test
+  public void countAndUntilEndTheSeries() {
+    RecurringEvent standUp = RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A));
+
+    Assert.assertEquals(3, toList(standUp.times(3).occurrences(HorizonRange.days(0, 30))).size());
+    Assert.assertEquals(5,
+        toList(standUp.until(5 * DAY).occurrences(HorizonRange.days(0, 30))).size());
+    Assert.assertEquals(2,
+        toList(standUp.times(3).occurrences(HorizonRange.days(1, 30))).size());
+  }
+
+  @Test
+  public void exceptionsAreSkipped() {
+    RecurringEvent standUp = RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A))
+        .except(HorizonRange.onDay(1, STAND_UP).start())
+        .times(3);
+
+    List<HorizonRange> expected =
+        Arrays.asList(HorizonRange.onDay(0, STAND_UP), HorizonRange.onDay(2, STAND_UP));
+
+    Assert.assertEquals(expected, toList(standUp.occurrences(HorizonRange.days(0, 30))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void exceptionMustBeAnOccurrence() {
+    RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A)).except(TIME_0900AM + 1);
+  }
+
+  @Test
+  public void farWindowOfEndlessSeries() {
+    // Only the occurrences in the window are worked out, however far away it is.
+    RecurringEvent standUp = RecurringEvent.daily("Stand-up", 0, STAND_UP, Arrays.asList(PERSON_A));
+    int day = 100_000_000;
+
+    Assert.assertEquals(Arrays.asList(HorizonRange.onDay(day, STAND_UP)),
+        toList(standUp.occurrences(HorizonRange.days(day, day))));
+  }
+
+  @Test
+  public void occurrencesWithoutDuration() {
+    TimeRange reminder = TimeRange.fromStartDuration(TIME_0900AM, 0);
+    RecurringEvent reminders =
+        RecurringEvent.daily("Reminder", 0, reminder, Arrays.asList(PERSON_A));
+
+    Assert.assertEquals(Arrays.asList(HorizonRange.onDay(2, reminder)),
+        toList(reminders.occurrences(HorizonRange.fromStartEnd(
+            DAY + TIME_0900AM + 1, 2 * DAY + TIME_0900AM + 1))));
+  }
+
+  private static List<HorizonRange> toList(Iterator<HorizonRange> occurrences) {
+    List<HorizonRange> list = new ArrayList<>();
+    occurrences.forEachRemaining(list::add);
+    return list;
+  }
+}
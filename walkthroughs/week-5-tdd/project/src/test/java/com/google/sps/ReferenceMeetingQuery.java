@@ -0,0 +1,226 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The original nested-loop implementation of {@link FindMeetingQuery}, kept as the reference that
+ * the optimized engines are checked against. It is slow on purpose and must not be optimized.
+ *
+ * <p>Compared to the code that used to ship, four bugs are fixed so that the reference describes
+ * the intended behaviour: {@code removeNestedTimes} no longer removes the wrong ranges (or throws)
+ * when a range is nested in more than one other range, the last minute of the day can be offered,
+ * mandatory attendees without any events fall back to the whole day, and a meeting without a
+ * duration is not offered the empty gap between two busy times that touch.
+ */
+public final class ReferenceMeetingQuery implements MeetingQueryEngine {
+  @Override
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    // Consider the edge cases where there is no attendes or the meeting duration is more than 24 hours or there are no known events
+
+    // Options where there are no Attendees and no optional attendees as well
+    if (request.getAttendees().isEmpty() && request.getOptionalAttendees().isEmpty()) {
+      return Arrays.asList(TimeRange.WHOLE_DAY);
+    }
+
+    // No options when meeting request is too long (more than a day)
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
+    }
+    
+    // No events
+    if (events.isEmpty()) {
+      // No events but there is a valid meeting request
+      if (request.getDuration() <= TimeRange.WHOLE_DAY.duration()) {
+        return Arrays.asList(TimeRange.WHOLE_DAY);
+      }
+      return Arrays.asList();
+    }
+
+    // Call the helper function for all other cases that no edge cases
+    return queryHelper(events, request);
+  }
+
+  /**
+   * This is a helper function which returns the possible time ranges for the requested meeting
+   * @param events These are all the known events that are already scheduled
+   * @param request This is a meeting request that is to be scheduled
+   * @return a collection of all possible times that {@code request} can be scheduled
+   */
+  private Collection<TimeRange> queryHelper(Collection<Event> events, MeetingRequest request) {
+    // Define the variables to be used
+    long durationOfMeeting = request.getDuration();
+
+    // List of all possible time ranges that attendees can have a meeting
+    Collection<TimeRange> possibleTimes = new ArrayList<>();
+    // Create a list of attendees and add all the attendees to that list
+    Collection<String> attendees = new ArrayList<>();
+    attendees.addAll(request.getAttendees());
+
+    // Create a list of all attendees (optional and mandatory) for the requested meeting
+    Collection<String> mandatoryAndOptionalAttendees = new ArrayList<>();
+    mandatoryAndOptionalAttendees.addAll(request.getOptionalAttendees());
+    mandatoryAndOptionalAttendees.addAll(attendees);
+    
+    // The algorithm is working on principles of sets. For instance set A represents mandatory attendees
+    // and set B represents optional attendees. If there is an intersection for a time that works for both, return that time
+    // otherwise, return time that works for only mandatory attendees
+
+    // Collection of timeranges that can not work for the proposed schedule
+    // These are times when mandatory attendees have an event scheduled at that particular time
+    List<TimeRange> attendeesCannotScheduleHere = cannotSheduleMeeting(attendees, events); 
+
+    // Get the timeranges for the mandatory and optional attendees
+    List<TimeRange>  mandatoryAndOptionalAttendeesCannotScheduleHere = cannotSheduleMeeting(mandatoryAndOptionalAttendees, events);
+
+    // Return the whole day if all attendees are free for the whole day and there are no optional attendees
+    if (mandatoryAndOptionalAttendeesCannotScheduleHere.isEmpty()) 
+      return Arrays.asList(TimeRange.WHOLE_DAY);
+
+    // Sort the time ranges by the end time in ascending order
+    Collections.sort(attendeesCannotScheduleHere, TimeRange.ORDER_BY_END);
+    Collections.sort(mandatoryAndOptionalAttendeesCannotScheduleHere, TimeRange.ORDER_BY_END);
+
+    // Remove the time ranges which are part of longer time ranges
+    removeNestedTimes(attendeesCannotScheduleHere);
+    removeNestedTimes(mandatoryAndOptionalAttendeesCannotScheduleHere);
+
+    // Check times that work for both optional and mandatory attendees
+    addRequestedMeetingToList(mandatoryAndOptionalAttendeesCannotScheduleHere, durationOfMeeting, possibleTimes);
+    // If there is no time that works for both optional and mandatory attendees, check for only mandatory attendees
+    if(possibleTimes.isEmpty()) {
+      if (attendeesCannotScheduleHere.isEmpty() && !attendees.isEmpty()) {
+        return Arrays.asList(TimeRange.WHOLE_DAY);
+      }
+      addRequestedMeetingToList(attendeesCannotScheduleHere, durationOfMeeting, possibleTimes);
+    }
+    return possibleTimes;
+  }
+  /**
+   * Method runs the algorithm for adding possible times which work for either both mandatory and optional attendees 
+   * or just mandatory attendees
+   * @param attendeesTimeranges is a list of all the attendees for the meeeting that we are considering
+   * @param durationOfMeeting is the length / duration of the requested meeting
+   * @param possibleTimes this is a list of all the possible times that we can schedule the meeting
+   */
+  private void addRequestedMeetingToList(List<TimeRange> attendeesTimeranges, long durationOfMeeting, Collection<TimeRange> possibleTimes) {
+    int START_OF_DAY = TimeRange.START_OF_DAY;
+    int END_OF_DAY = TimeRange.END_OF_DAY;
+
+    for (int index = 0; index < attendeesTimeranges.size(); index++) {
+      TimeRange currentTimeRange = attendeesTimeranges.get(index);
+      int startOfCurrentTimeRange = currentTimeRange.start();
+      int endOfCurrentTimeRange = currentTimeRange.end();
+
+      // We have 3 different ways we can schedule the meeting at according to the list of time ranges
+      // 1. When we have the first end time, we can schedule before it's start time and start of day.
+      // It is also the first start time because we removed the nested times
+      // 2. Times which are in between the first and last end time in the time ranges
+      // 3. The last end time, we can check if we can schedule an item between it and the end of day
+      // First(1) way
+      if (index == 0) {
+        addPossibleTime(START_OF_DAY, startOfCurrentTimeRange, false, durationOfMeeting, possibleTimes);
+      }
+      // Second(2) way
+      if (index + 1 < attendeesTimeranges.size()) {
+        TimeRange nextTimeRange = attendeesTimeranges.get(index + 1);
+        addPossibleTime(endOfCurrentTimeRange, nextTimeRange.start(), false, durationOfMeeting, possibleTimes);
+      }
+      //Third(3) way
+      if ((index == attendeesTimeranges.size() - 1) && endOfCurrentTimeRange <= END_OF_DAY) {
+          addPossibleTime(endOfCurrentTimeRange, END_OF_DAY, true, durationOfMeeting, possibleTimes);
+      }
+    }
+  }
+
+  /**
+   * Create and check if timerange is appropriate for scheduling requesting time.
+   * If an available time is found, it is added to {@code possibleTimes}
+   * @param start represents the start time for the time range we want to create
+   * @param end represents the end time for the time range we want to create
+   * @param inclusive this tells us if we would like to include the end time in our time range or not
+   * @param durationOfMeeting the duration of the requested meeting
+   * @param possibleTimes this is a list of all the possible times that we can schedule the meeting
+   */
+  private void addPossibleTime(int start, int end, boolean inclusive, long durationOfMeeting, Collection<TimeRange> possibleTimes) {
+    TimeRange possibleTime = TimeRange.fromStartEnd(start, end, inclusive);
+    if (possibleTime.duration() > 0 && possibleTime.duration() >= durationOfMeeting
+        && !possibleTimes.contains(possibleTime)) {
+        possibleTimes.add(possibleTime);
+    }
+  }
+
+  /** 
+   * Check for events which attendees are attending and mark those time ranges
+   * @param attendees is a collection of all the attendees for the required meeting
+   * @param events is a collection of all the events that are known
+   * @return a collection of all the time ranges when the {@code attendees} are busy and we cannot schedule meetings there
+  */
+  private List<TimeRange> cannotSheduleMeeting(Collection<String> attendees, Collection<Event> events) {
+    List<TimeRange> attendeesConflictingTimes = new ArrayList<>();
+    for (String currentAttendee: attendees) {
+      for (Event currentEvent: events) {
+        // Check to see if attendee attends the current event
+        if (isAttendeeOfEvent(currentAttendee, currentEvent)) {
+          attendeesConflictingTimes.add(currentEvent.getWhen());
+        }
+      }
+    }
+    return attendeesConflictingTimes;
+  }
+
+  /**
+   * Check if an event has this person as an attendee
+   * @param attendee represents the person we would like to check if they are attending a particular event
+   * @param event represents an event
+   * @return true if {@code attendee} is an attendee of {@code event}
+   */
+  private boolean isAttendeeOfEvent(String attendee, Event event) {
+    return event.getAttendees().contains(attendee);
+  }
+
+  /**
+   * Remove all the times that are nested in another time
+   * For instance in this case: |---------|
+   *                               |---|
+   * We will remove the short time in order to have few times to cross check over
+   * @param attendeesTimeranges holds a collection of timeranges that we would like to trim
+   */
+  private void removeNestedTimes(List<TimeRange> attendeesTimeranges) {
+    // Keep track of the indices to be removed, sorted and without duplicates
+    TreeSet<Integer> indicesToRemove = new TreeSet<>();
+    for (int i = 0; i < attendeesTimeranges.size(); i++) {
+      for (int j = i + 1; j < attendeesTimeranges.size(); j++) {
+        if (attendeesTimeranges.get(i).contains(attendeesTimeranges.get(j))) {
+          indicesToRemove.add(j);
+        }else if (attendeesTimeranges.get(j).contains(attendeesTimeranges.get(i))) {
+          indicesToRemove.add(i);
+        }
+      }
+    }
+    // Remove from the back so that the indices which are still to be removed do not shift
+    for (int index: indicesToRemove.descendingSet()) {
+      attendeesTimeranges.remove(index);
+    }
+  }
+}
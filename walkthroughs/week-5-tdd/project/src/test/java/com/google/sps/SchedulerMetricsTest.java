@@ -0,0 +1,153 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.sps.SchedulerMetrics.Counter;
+import com.google.sps.SchedulerMetrics.Phase;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SchedulerMetricsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private final SchedulerMetrics metrics = SchedulerMetrics.shared();
+
+  @Before
+  public void setUp() {
+    metrics.clear();
+  }
+
+  @After
+  public void tearDown() {
+    metrics.setEnabled(false);
+    metrics.clear();
+  }
+
+  @Test
+  public void nothingIsRecordedWhileOff() {
+    metrics.setEnabled(false);
+
+    new FindMeetingQuery().query(events(), new MeetingRequest(Arrays.asList(PERSON_A), 30));
+
+    for (Phase phase : Phase.values()) {
+      Assert.assertEquals(0, metrics.count(phase));
+    }
+    for (Counter counter : Counter.values()) {
+      Assert.assertEquals(0, metrics.count(counter));
+    }
+  }
+
+  @Test
+  public void everyPhaseIsRecordedOnce() {
+    metrics.setEnabled(true);
+
+    Collection<TimeRange> times = new FindMeetingQuery().query(events(),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+
+    Assert.assertEquals(2, times.size());
+    for (Phase phase : Phase.values()) {
+      Assert.assertEquals(phase.toString(), 1, metrics.count(phase));
+    }
+    Assert.assertEquals(3L, counter(Counter.EVENTS_SCANNED).get("sum"));
+    Assert.assertEquals(2L, counter(Counter.INTERVALS_MERGED).get("sum"));
+    Assert.assertEquals(2L, counter(Counter.SLOTS_PRODUCED).get("sum"));
+  }
+
+  @Test
+  public void droppingOptionalAttendeesMergesTwice() {
+    metrics.setEnabled(true);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee("Person C");
+
+    new FindMeetingQuery().query(Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList("Person C"))), request);
+
+    Assert.assertEquals(2, metrics.count(Phase.SORT));
+    Assert.assertEquals(2, metrics.count(Phase.MERGE));
+    Assert.assertEquals(1, metrics.count(Phase.SCAN));
+    Assert.assertEquals(1L, counter(Counter.SLOTS_PRODUCED).get("sum"));
+  }
+
+  @Test
+  public void closingALimitedStreamRecordsTheScan() {
+    metrics.setEnabled(true);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    try (Stream<TimeRange> times = new FindMeetingQuery().stream(events(), request)) {
+      Assert.assertEquals(1, times.limit(1).count());
+    }
+
+    Assert.assertEquals(1, metrics.count(Phase.SCAN));
+    Assert.assertEquals(1L, counter(Counter.SLOTS_PRODUCED).get("sum"));
+  }
+
+  @Test
+  public void eventStoreCountsTheRowsItVisits() {
+    metrics.setEnabled(true);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    new FindMeetingQuery().query(EventStore.of(events()), request);
+
+    // One row of A and one of B; the row of C is never visited.
+    Assert.assertEquals(2L, counter(Counter.EVENTS_SCANNED).get("sum"));
+  }
+
+  @Test
+  public void snapshotNamesEveryPhaseAndCounter() {
+    Map<String, Object> snapshot = metrics.snapshot();
+
+    Assert.assertEquals(false, snapshot.get("enabled"));
+    Assert.assertEquals(Arrays.asList("collect", "sort", "merge", "scan", "query"),
+        Arrays.asList(((Map<?, ?>) snapshot.get("phaseNanos")).keySet().toArray()));
+    Assert.assertEquals(Arrays.asList("events_scanned", "intervals_merged", "slots_produced"),
+        Arrays.asList(((Map<?, ?>) snapshot.get("counters")).keySet().toArray()));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Number> counter(Counter counter) {
+    Map<String, Object> counters = (Map<String, Object>) metrics.snapshot().get("counters");
+    return (Map<String, Number>) counters.get(counter.name().toLowerCase());
+  }
+
+  private static Collection<Event> events() {
+    return Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+            Arrays.asList("Person C")));
+  }
+}
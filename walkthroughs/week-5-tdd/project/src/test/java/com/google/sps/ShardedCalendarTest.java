@@ -0,0 +1,159 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ShardedCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void mergesBusyTimesAcrossShards() {
+    try (ShardedCalendar calendar = new ShardedCalendar(4)) {
+      calendar.addEvent(new Event("Event 1",
+          TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A)));
+      calendar.addEvent(new Event("Event 2",
+          TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES), Arrays.asList(PERSON_B)));
+
+      Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+          calendar.busyTimes(Arrays.asList(PERSON_A, PERSON_B, "Nobody")));
+    }
+  }
+
+  @Test
+  public void removeTakesOutOneCopy() {
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B));
+    try (ShardedCalendar calendar = new ShardedCalendar(2)) {
+      calendar.addEvent(event);
+      calendar.addEvent(event);
+
+      Assert.assertTrue(calendar.removeEvent(event));
+      Assert.assertEquals(Arrays.asList(event.getWhen()),
+          calendar.busyTimes(Arrays.asList(PERSON_A)));
+      Assert.assertTrue(calendar.removeEvent(event));
+      Assert.assertEquals(Arrays.asList(), calendar.busyTimes(Arrays.asList(PERSON_A, PERSON_B)));
+      Assert.assertFalse(calendar.removeEvent(event));
+    }
+  }
+
+  @Test
+  public void failedRemoveLeavesEveryAttendeeAlone() {
+    // A and B have the event but C does not. Depending on the shard count, C shares a shard with
+    // A or B, or the shards of A and B have to put the event back.
+    TimeRange when = TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES);
+    Event event = new Event("Event 1", when, Arrays.asList(PERSON_A, PERSON_B, PERSON_C));
+    for (int shardCount = 1; shardCount <= 4; shardCount++) {
+      try (ShardedCalendar calendar = new ShardedCalendar(shardCount)) {
+        calendar.addEvent(new Event("Event 1", when, Arrays.asList(PERSON_A, PERSON_B)));
+
+        Assert.assertFalse(calendar.removeEvent(event));
+        Assert.assertEquals(Arrays.asList(when), calendar.busyTimes(Arrays.asList(PERSON_A)));
+        Assert.assertEquals(Arrays.asList(when), calendar.busyTimes(Arrays.asList(PERSON_B)));
+        Assert.assertEquals(Arrays.asList(), calendar.busyTimes(Arrays.asList(PERSON_C)));
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void closedCalendarRejectsWork() {
+    ShardedCalendar calendar = new ShardedCalendar(2);
+    calendar.close();
+
+    calendar.busyTimes(Arrays.asList(PERSON_A));
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    Random random = new Random(42);
+
+    try (ShardedCalendar calendar = new ShardedCalendar(3)) {
+      for (int round = 0; round < 300; round++) {
+        Collection<Event> events = RandomCalendars.events(random, 20, true);
+        MeetingRequest request = RandomCalendars.request(random);
+        calendar.addEvents(events);
+
+        Assert.assertEquals("round " + round, query.query(events, request),
+            query.query(calendar, request));
+
+        for (Event event : events) {
+          Assert.assertEquals(!event.getAttendees().isEmpty(), calendar.removeEvent(event));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void concurrentWritersAndReaders() throws Exception {
+    // Every writer adds and removes its own person's events while the others read.
+    int writers = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(2 * writers);
+    try (ShardedCalendar calendar = new ShardedCalendar(3)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < writers; i++) {
+        String person = "Writer " + i;
+        futures.add(executor.submit(() -> {
+          for (int minute = 0; minute < 500; minute++) {
+            Event event = new Event("Event", TimeRange.fromStartDuration(minute, 1),
+                Arrays.asList(person));
+            calendar.addEvent(event);
+            Assert.assertTrue(calendar.busyTimes(Arrays.asList(person))
+                .contains(event.getWhen()));
+            Assert.assertTrue(calendar.removeEvent(event));
+          }
+          calendar.addEvent(new Event("Event", TimeRange.WHOLE_DAY, Arrays.asList(person)));
+        }));
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 500; j++) {
+            calendar.busyTimes(Arrays.asList(person, "Writer 0"));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      for (int i = 0; i < writers; i++) {
+        Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+            calendar.busyTimes(Arrays.asList("Writer " + i)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SweepLineEngineTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  @Test
+  public void freeTimesMergesUnsortedOverlappingTimes() {
+    // Busy    :   |---A---|
+    //                  |---B---|
+    //                                |-C-|
+    // Day     : |-----------------------------|
+    // Options : |-1-|          |--2--|   |-3--|
+    List<TimeRange> busyTimes = new ArrayList<>(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_1100AM, TIME_1100AM + 30, false),
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM + 30, false)));
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM + 30, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, SweepLineEngine.freeTimes(busyTimes, 30));
+  }
+
+  @Test
+  public void lastMinuteOfTheDayCanBeUsed() {
+    List<TimeRange> busyTimes = new ArrayList<>(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TimeRange.END_OF_DAY, false)));
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.END_OF_DAY, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, SweepLineEngine.freeTimes(busyTimes, 1));
+  }
+
+  @Test
+  public void matchesReferenceOnRandomCalendars() {
+    FindMeetingQuery reference = new FindMeetingQuery(new ReferenceMeetingQuery());
+    FindMeetingQuery sweepLine = new FindMeetingQuery(new SweepLineEngine());
+    Random random = new Random(42);
+
+    for (int round = 0; round < 500; round++) {
+      Collection<Event> events = RandomCalendars.events(random, 20, false);
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals("round " + round, reference.query(events, request),
+          sweepLine.query(events, request));
+    }
+  }
+
+  @Test
+  public void parallelPartitionsMatchTheSequentialAnswer() {
+    FindMeetingQuery sequential = new FindMeetingQuery(new SweepLineEngine());
+    // Split every request, and partition even the smallest ones.
+    FindMeetingQuery parallel =
+        new FindMeetingQuery(new SweepLineEngine(1, ForkJoinPool.commonPool()));
+    Random random = new Random(42);
+
+    for (int round = 0; round < 300; round++) {
+      BusyTimeIndex index = new BusyTimeIndex(RandomCalendars.events(random, 20, true));
+      MeetingRequest request = RandomCalendars.request(random);
+
+      Assert.assertEquals("round " + round, sequential.query(index, request),
+          parallel.query(index, request));
+    }
+  }
+
+  @Test
+  public void parallelAnswerForThousandsOfAttendeesMatchesTheEvents() {
+    // 3000 people with one or two short events each before 10:00; a third of them are optional.
+    Random random = new Random(42);
+    List<Event> events = new ArrayList<>();
+    List<String> attendees = new ArrayList<>();
+    List<String> optionalAttendees = new ArrayList<>();
+    for (int person = 0; person < 3000; person++) {
+      String name = "Attendee " + person;
+      for (int i = 0; i < 1 + random.nextInt(2); i++) {
+        events.add(new Event("Event", TimeRange.fromStartDuration(15 * random.nextInt(40), 15),
+            Arrays.asList(name)));
+      }
+      (person % 3 == 0 ? optionalAttendees : attendees).add(name);
+    }
+    MeetingRequest request = new MeetingRequest(attendees, 15);
+    for (String name : optionalAttendees) {
+      request.addOptionalAttendee(name);
+    }
+
+    FindMeetingQuery parallel =
+        new FindMeetingQuery(new SweepLineEngine(1000, ForkJoinPool.commonPool()));
+
+    Collection<TimeRange> expected = new FindMeetingQuery().query(events, request);
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, parallel.query(new BusyTimeIndex(events), request));
+  }
+}
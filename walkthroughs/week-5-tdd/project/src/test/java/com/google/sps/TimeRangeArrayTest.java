@@ -0,0 +1,116 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TimeRangeArrayTest {
+  @Test
+  public void sortsByStart() {
+    List<TimeRange> ranges = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      ranges.add(TimeRange.fromStartDuration(random.nextInt(1440), random.nextInt(60)));
+    }
+    TimeRangeArray array = TimeRangeArray.of(ranges);
+
+    array.sortByStart();
+
+    // Ranges with the same start are sorted by duration.
+    List<TimeRange> expected = new ArrayList<>(ranges);
+    Collections.sort(expected, TimeRange.ORDER_BY_START.thenComparing(TimeRange::duration));
+    Assert.assertEquals(expected, array.toList());
+  }
+
+  @Test
+  public void mergesOverlappingAndTouchingRanges() {
+    TimeRangeArray array = TimeRangeArray.of(Arrays.asList(
+        TimeRange.fromStartEnd(600, 700, false),
+        TimeRange.fromStartEnd(0, 60, false),
+        TimeRange.fromStartEnd(30, 90, false),
+        TimeRange.fromStartEnd(90, 120, false),
+        TimeRange.fromStartDuration(120, 0),
+        TimeRange.fromStartDuration(300, 0),
+        TimeRange.fromStartEnd(650, 660, false)));
+
+    array.merge();
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(0, 120, false),
+        TimeRange.fromStartDuration(300, 0),
+        TimeRange.fromStartEnd(600, 700, false));
+    Assert.assertEquals(expected, array.toList());
+  }
+
+  @Test
+  public void unionMatchesMergingEverything() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < 100; round++) {
+      TimeRangeArray a = randomRanges(random);
+      TimeRangeArray b = randomRanges(random);
+      TimeRangeArray both = new TimeRangeArray();
+      for (TimeRange range : a.toList()) {
+        both.add(range);
+      }
+      for (TimeRange range : b.toList()) {
+        both.add(range);
+      }
+      a.merge();
+      b.merge();
+      both.merge();
+
+      Assert.assertEquals("round " + round, both.toList(), TimeRangeArray.union(a, b).toList());
+    }
+  }
+
+  @Test
+  public void growsPastItsCapacity() {
+    TimeRangeArray array = new TimeRangeArray(0);
+    for (int start = 0; start < 100; start++) {
+      array.add(start, 1);
+    }
+
+    Assert.assertEquals(100, array.size());
+    Assert.assertEquals(TimeRange.fromStartDuration(42, 1), array.get(42));
+    Assert.assertEquals(100, array.end(99));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rejectsIndexesPastTheEnd() {
+    TimeRangeArray array = new TimeRangeArray();
+    array.add(0, 30);
+
+    array.start(1);
+  }
+
+  private static TimeRangeArray randomRanges(Random random) {
+    TimeRangeArray ranges = new TimeRangeArray();
+    for (int i = random.nextInt(20); i > 0; i--) {
+      ranges.add(10 * random.nextInt(144), 10 * random.nextInt(6));
+    }
+    return ranges;
+  }
+}
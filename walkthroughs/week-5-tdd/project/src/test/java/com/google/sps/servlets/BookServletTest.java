@@ -0,0 +1,48 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.TimeRange;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BookServletTest {
+  private static final int END_OF_DAY = TimeRange.WHOLE_DAY.end();
+
+  @Test
+  public void acceptsMeetingsWithinTheDay() {
+    Assert.assertTrue(BookServlet.isWithinDay(TimeRange.START_OF_DAY, 0));
+    Assert.assertTrue(BookServlet.isWithinDay(TimeRange.START_OF_DAY, END_OF_DAY));
+    Assert.assertTrue(BookServlet.isWithinDay(END_OF_DAY - 30, 30));
+  }
+
+  @Test
+  public void rejectsMeetingsOutsideTheDay() {
+    Assert.assertFalse(BookServlet.isWithinDay(-1, 30));
+    Assert.assertFalse(BookServlet.isWithinDay(0, -1));
+    Assert.assertFalse(BookServlet.isWithinDay(END_OF_DAY - 29, 30));
+  }
+
+  @Test
+  public void rejectsDurationsThatWouldOverflow() {
+    // 1 + Integer.MAX_VALUE wraps around to a negative end.
+    Assert.assertFalse(BookServlet.isWithinDay(1, Integer.MAX_VALUE));
+    Assert.assertFalse(BookServlet.isWithinDay(Integer.MAX_VALUE, Integer.MAX_VALUE));
+  }
+}
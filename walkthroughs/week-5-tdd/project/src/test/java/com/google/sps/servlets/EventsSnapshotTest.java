@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventsSnapshotTest {
+  @Test
+  public void encodingsHaveDifferentTags() {
+    EventsSnapshot snapshot = new EventsSnapshot(7, new ArrayList<>());
+
+    Assert.assertEquals("\"7\"", snapshot.etag(false));
+    Assert.assertEquals("\"7-gzip\"", snapshot.etag(true));
+    Assert.assertNotEquals(
+        snapshot.etag("Person A", 0, 60, false), snapshot.etag("Person A", 0, 60, true));
+  }
+
+  @Test
+  public void filteredTagsSpellOutTheFilter() {
+    EventsSnapshot snapshot = new EventsSnapshot(7, new ArrayList<>());
+
+    Assert.assertEquals("\"7-0-60\"", snapshot.etag(null, 0, 60, false));
+    Assert.assertEquals("\"7-0-60-41\"", snapshot.etag("A", 0, 60, false));
+    Assert.assertNotEquals(snapshot.etag("A", 0, 60, false), snapshot.etag("B", 0, 60, false));
+    Assert.assertNotEquals(snapshot.etag(null, 0, 60, false), snapshot.etag(null, 0, 61, false));
+    // Quotes in a name must not end the tag.
+    Assert.assertEquals("\"7-0-60-22\"", snapshot.etag("\"", 0, 60, false));
+  }
+
+  @Test
+  public void filtersMatchCheckingEveryEvent() {
+    // Long events that start early must still be found by a window that begins after them.
+    String[] people = {"Person A", "Person B", "Person C"};
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = random.nextInt(30); i > 0; i--) {
+        int start = 15 * random.nextInt(96);
+        int duration = 15 * random.nextInt(1 + random.nextInt(96 - start / 15));
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            Arrays.asList(people[random.nextInt(people.length)])));
+      }
+      EventsSnapshot snapshot = new EventsSnapshot(round, events);
+
+      int from = 15 * random.nextInt(96);
+      int to = from + 15 * random.nextInt(96 - from / 15 + 1);
+      String attendee = random.nextBoolean() ? null : people[random.nextInt(people.length)];
+      Assert.assertEquals("round " + round, expectedJson(events, attendee, from, to),
+          new String(snapshot.filteredJson(attendee, from, to), StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String expectedJson(List<Event> events, String attendee, int from, int to) {
+    List<Event> sorted = new ArrayList<>(events);
+    Collections.sort(sorted, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    TimeRange window = TimeRange.fromStartEnd(from, to, false);
+    List<Event> expected = new ArrayList<>();
+    for (Event event : sorted) {
+      TimeRange when = event.getWhen();
+      // An empty window holds no event, even one that spans it.
+      boolean inWindow = when.start() < to
+          && (when.duration() > 0 ? when.overlaps(window) : when.start() >= from);
+      if (inWindow && (attendee == null || event.getAttendees().contains(attendee))) {
+        expected.add(event);
+      }
+    }
+    return new Gson().toJson(expected);
+  }
+}
@@ -0,0 +1,42 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class GetEventsServletTest {
+  @Test
+  public void acceptsGzipByNameOrWildcard() {
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("gzip"));
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("deflate, GZIP;q=0.5"));
+    Assert.assertTrue(GetEventsServlet.acceptsGzip("br, *"));
+  }
+
+  @Test
+  public void refusesGzipWithZeroQuality() {
+    Assert.assertFalse(GetEventsServlet.acceptsGzip(null));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("identity"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("gzip;q=0"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("gzip; q=0.000, identity"));
+    // A named coding wins over the wildcard.
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("*, gzip;q=0"));
+    Assert.assertFalse(GetEventsServlet.acceptsGzip("*;q=0"));
+  }
+}